@@ -18,6 +18,7 @@
 package net.raphimc.noteblocktool;
 
 import com.formdev.flatlaf.FlatDarkLaf;
+import net.raphimc.noteblocktool.cli.NoteBlockToolCli;
 import net.raphimc.noteblocktool.frames.ListFrame;
 
 import javax.swing.*;
@@ -25,6 +26,11 @@ import javax.swing.*;
 public class Main {
 
     public static void main(String[] args) {
+        // Launchers and file associations may pass other arguments, those still open the GUI
+        if (args.length > 0 && NoteBlockToolCli.isCommand(args[0])) {
+            System.exit(NoteBlockToolCli.run(args));
+        }
+
         FlatDarkLaf.setup();
         UIManager.getLookAndFeelDefaults().put("TextComponent.arc", 5);
         UIManager.getLookAndFeelDefaults().put("Button.arc", 5);
@@ -29,11 +29,12 @@ import java.nio.file.Files;
 import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class SoundMap {
 
     public static final Map<MinecraftInstrument, String> INSTRUMENT_SOUNDS = new EnumMap<>(MinecraftInstrument.class);
-    private static final Map<String, URL> ALL_SOUND_LOCATIONS = new HashMap<>();
+    private static final AtomicReference<SoundRegistry> REGISTRY = new AtomicReference<>(new SoundRegistry(0, Map.of()));
 
     static {
         INSTRUMENT_SOUNDS.put(MinecraftInstrument.HARP, "harp2.ogg");
@@ -67,9 +68,9 @@ public class SoundMap {
     }
 
     public static void reload(final File customSoundsFolder) {
-        ALL_SOUND_LOCATIONS.clear();
+        final Map<String, URL> soundLocations = new HashMap<>();
         for (Map.Entry<MinecraftInstrument, String> entry : INSTRUMENT_SOUNDS.entrySet()) {
-            ALL_SOUND_LOCATIONS.put(entry.getValue(), SoundMap.class.getResource("/noteblock_sounds/" + entry.getValue()));
+            soundLocations.put(entry.getValue(), SoundMap.class.getResource("/noteblock_sounds/" + entry.getValue()));
         }
 
         if (customSoundsFolder != null && customSoundsFolder.exists() && customSoundsFolder.isDirectory()) {
@@ -80,7 +81,7 @@ public class SoundMap {
 
                         final String fileName = customSoundsFolder.toPath().relativize(path).toString();
                         if (fileName.endsWith(".ogg") || fileName.endsWith(".mp3") || fileName.endsWith(".wav")) {
-                            ALL_SOUND_LOCATIONS.put(fileName.replace(File.separatorChar, '/'), path.toUri().toURL());
+                            soundLocations.put(fileName.replace(File.separatorChar, '/'), path.toUri().toURL());
                         }
                     } catch (Throwable e) {
                         throw new RuntimeException("Error while loading custom sound sample", e);
@@ -90,21 +91,32 @@ public class SoundMap {
                 throw new RuntimeException("Failed to load custom sound samples", e);
             }
         }
+        // Readers keep using the snapshot they already hold, so a reload never affects a running export
+        REGISTRY.updateAndGet(registry -> new SoundRegistry(registry.version() + 1, soundLocations));
+    }
+
+    public static SoundRegistry getRegistry() {
+        return REGISTRY.get();
     }
 
     public static Map<String, byte[]> loadSoundData(final Song song) {
+        return loadSoundData(song, getRegistry());
+    }
+
+    public static Map<String, byte[]> loadSoundData(final Song song, final SoundRegistry registry) {
+        final Map<String, URL> soundLocations = registry.soundLocations();
         try {
             final Map<String, byte[]> soundData = new HashMap<>();
             for (MinecraftInstrument instrument : SongUtil.getUsedVanillaInstruments(song)) {
                 final String sound = INSTRUMENT_SOUNDS.get(instrument);
-                if (sound != null && ALL_SOUND_LOCATIONS.containsKey(sound)) {
-                    soundData.put(sound, IOUtil.readFully(ALL_SOUND_LOCATIONS.get(sound).openStream()));
+                if (sound != null && soundLocations.containsKey(sound)) {
+                    soundData.put(sound, IOUtil.readFully(soundLocations.get(sound).openStream()));
                 }
             }
             for (NbsCustomInstrument customInstrument : SongUtil.getUsedNbsCustomInstruments(song)) {
                 final String fileName = customInstrument.getSoundFilePathOr("").replace(File.separatorChar, '/');
-                if (ALL_SOUND_LOCATIONS.containsKey(fileName)) {
-                    soundData.put(fileName, IOUtil.readFully(ALL_SOUND_LOCATIONS.get(fileName).openStream()));
+                if (soundLocations.containsKey(fileName)) {
+                    soundData.put(fileName, IOUtil.readFully(soundLocations.get(fileName).openStream()));
                 }
             }
             return soundData;
@@ -61,14 +61,24 @@ public interface LameLibrary extends Library {
 
     int lame_set_VBR_quality(final Pointer lame, float vbr_quality);
 
+    int lame_set_bWriteVbrTag(final Pointer lame, final int bWriteVbrTag);
+
+    int lame_set_disable_reservoir(final Pointer lame, final int disable_reservoir);
+
     int lame_init_params(final Pointer lame);
 
     int lame_encode_buffer_ieee_float(final Pointer lame, final float[] pcm_l, final float[] pcm_r, final int nsamples, final byte[] mp3buf, final int mp3buf_size);
 
+    int lame_encode_buffer_ieee_float(final Pointer lame, final Pointer pcm_l, final Pointer pcm_r, final int nsamples, final Pointer mp3buf, final int mp3buf_size);
+
     int lame_encode_buffer_interleaved_ieee_float(final Pointer lame, final float[] pcm, final int nsamples, final byte[] mp3buf, final int mp3buf_size);
 
+    int lame_encode_buffer_interleaved_ieee_float(final Pointer lame, final Pointer pcm, final int nsamples, final Pointer mp3buf, final int mp3buf_size);
+
     int lame_encode_flush(final Pointer lame, final byte[] mp3buf, final int mp3buf_size);
 
+    int lame_encode_flush(final Pointer lame, final Pointer mp3buf, final int mp3buf_size);
+
     int lame_get_lametag_frame(final Pointer lame, final byte[] buffer, final int size);
 
     int lame_close(final Pointer lame);
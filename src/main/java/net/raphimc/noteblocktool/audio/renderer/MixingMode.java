@@ -0,0 +1,41 @@
+/*
+ * This file is part of NoteBlockTool - https://github.com/RaphiMC/NoteBlockTool
+ * Copyright (C) 2022-2026 RK_01/RaphiMC and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.raphimc.noteblocktool.audio.renderer;
+
+public enum MixingMode {
+
+    SINGLE_THREADED("Single-threaded"),
+    MULTITHREADED("Multithreaded"),
+    ADAPTIVE("Adaptive");
+
+    private final String name;
+
+    MixingMode(final String name) {
+        this.name = name;
+    }
+
+    public boolean isThreaded() {
+        return this != SINGLE_THREADED;
+    }
+
+    @Override
+    public String toString() {
+        return this.name;
+    }
+
+}
@@ -0,0 +1,63 @@
+/*
+ * This file is part of NoteBlockTool - https://github.com/RaphiMC/NoteBlockTool
+ * Copyright (C) 2022-2026 RK_01/RaphiMC and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.raphimc.noteblocktool.audio.renderer;
+
+import net.raphimc.audiomixer.util.FloatAudioFormat;
+
+public enum RenderProfile {
+
+    NORMAL("Normal"),
+    DRAFT("Draft");
+
+    private static final float DRAFT_SAMPLE_RATE = 16000F;
+    private static final int DRAFT_MAX_SOUNDS = 256;
+
+    private final String name;
+
+    RenderProfile(final String name) {
+        this.name = name;
+    }
+
+    public FloatAudioFormat getAudioFormat(final FloatAudioFormat audioFormat) {
+        if (this == DRAFT) {
+            return new FloatAudioFormat(Math.min(audioFormat.sampleRate(), DRAFT_SAMPLE_RATE), 1);
+        }
+        return audioFormat;
+    }
+
+    public int getMaxSounds(final int maxSounds) {
+        if (this == DRAFT) {
+            return Math.min(maxSounds, DRAFT_MAX_SOUNDS);
+        }
+        return maxSounds;
+    }
+
+    public boolean isLimited() {
+        return this != DRAFT;
+    }
+
+    public boolean isNearestNeighbourPitch() {
+        return this == DRAFT;
+    }
+
+    @Override
+    public String toString() {
+        return this.name;
+    }
+
+}
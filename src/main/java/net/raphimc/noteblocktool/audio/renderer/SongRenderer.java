@@ -26,6 +26,7 @@ import net.raphimc.audiomixer.mixer.MultithreadedMixer;
 import net.raphimc.audiomixer.processor.dynamics.GainProcessor;
 import net.raphimc.audiomixer.processor.spatial.GainPanProcessor;
 import net.raphimc.audiomixer.processor.spatial.PanProcessor;
+import net.raphimc.audiomixer.source.AudioSource;
 import net.raphimc.audiomixer.source.audio.impl.BufferedAudioSource;
 import net.raphimc.audiomixer.util.FloatAudioFormat;
 import net.raphimc.audiomixer.util.buffer.AudioBuffer;
@@ -38,31 +39,68 @@ import net.raphimc.noteblocklib.model.note.Note;
 import net.raphimc.noteblocklib.model.song.Song;
 import net.raphimc.noteblocklib.player.SongPlayer;
 import net.raphimc.noteblocktool.audio.SoundMap;
+import net.raphimc.noteblocktool.audio.SoundRegistry;
 import net.raphimc.noteblocktool.util.AudioFileUtil;
+import net.raphimc.noteblocktool.util.CpuBudget;
 
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 
 public abstract class SongRenderer extends SongPlayer implements AutoCloseable {
 
+    private static final int RENDER_BLOCK_FRAMES = 1024;
+    private static final int PARALLEL_MIXING_MIN_SOURCES = 64;
+    private static final int INLINE_MIXING_MAX_SOURCES = 32;
+    private static final float PARALLEL_MIXING_MIN_NANOS_PER_FRAME = 4_000F;
+    private static final float INLINE_MIXING_MAX_NANOS_PER_FRAME = 2_000F;
+    private static final long PARALLEL_MIXING_BACKOFF_NANOS = 1_000_000_000L;
+
     private final Map<String, AudioBuffer> sounds = new HashMap<>();
+    private final Map<NoteVoice, AudioBuffer> pitchedSounds = new ConcurrentHashMap<>();
+    private final int soundRegistryVersion;
     private final LimitingAudioMixer audioMixer;
-    private final Mixer masterMixer;
+    private final MixingMode mixingMode;
+    private final Map<Integer, MultithreadedMixer> multithreadedMixers = new HashMap<>();
+    private Mixer masterMixer;
+    private float nanosPerSourceFrame;
+    private CpuBudget cpuBudget;
+    private int mixerCores;
+    private long parallelMixingBackoffEnd;
     private final int maxSourceCount;
+    private volatile float admissionThreshold;
+    private int lastTickDroppedNotes;
+    private long droppedNotes;
     private boolean running;
     private boolean timingJitter;
+    private RandomGenerator timingJitterRandom;
+    private boolean deterministic;
+    private float maxRealtimeFactor;
+    private volatile boolean nearestNeighbourPitch;
     private long lastTickTime;
+    private AudioBufferBuilder blockBufferBuilder;
+    private long blockPosition;
+    private long renderedFrames;
+    private double nextTickFrame;
+
+    public SongRenderer(final Song song, final int maxSounds, final boolean limited, final MixingMode mixingMode, final FloatAudioFormat audioFormat) {
+        this(song, SoundMap.getRegistry(), maxSounds, limited, mixingMode, audioFormat);
+    }
 
-    public SongRenderer(final Song song, final int maxSounds, final boolean limited, final boolean threaded, final FloatAudioFormat audioFormat) {
+    public SongRenderer(final Song song, final SoundRegistry soundRegistry, final int maxSounds, final boolean limited, final MixingMode mixingMode, final FloatAudioFormat audioFormat) {
         super(song);
         this.setCustomScheduler(null);
+        this.soundRegistryVersion = soundRegistry.version();
         try {
-            for (Map.Entry<String, byte[]> entry : SoundMap.loadSoundData(song).entrySet()) {
+            for (Map.Entry<String, byte[]> entry : SoundMap.loadSoundData(song, soundRegistry).entrySet()) {
                 this.sounds.put(entry.getKey(), AudioIO.read(AudioFileUtil.readAudioFile(new ByteArrayInputStream(entry.getValue())), audioFormat.withChannels(1)));
             }
         } catch (Throwable e) {
@@ -70,44 +108,106 @@ public abstract class SongRenderer extends SongPlayer implements AutoCloseable {
         }
         this.audioMixer = new LimitingAudioMixer(audioFormat);
         this.audioMixer.getLimiterProcessor().setEnabled(limited);
-        if (threaded) {
-            this.masterMixer = new MultithreadedMixer();
-            this.audioMixer.add(this.masterMixer);
-        } else {
-            this.masterMixer = this.audioMixer;
+        this.mixingMode = mixingMode;
+        this.masterMixer = this.audioMixer;
+        if (mixingMode == MixingMode.MULTITHREADED) {
+            this.setMixerThreads(Runtime.getRuntime().availableProcessors());
         }
         this.maxSourceCount = maxSounds;
     }
 
     @Override
     protected void playNotes(final List<Note> notes) {
+        this.renderPendingFrames();
+        final PreparedVoices preparedVoices = this.getPreparedVoices(notes);
+        for (NoteAudioSource voice : preparedVoices.voices()) {
+            this.masterMixer.add(voice);
+        }
+        this.lastTickDroppedNotes = preparedVoices.droppedNotes();
+        this.droppedNotes += preparedVoices.droppedNotes();
+        this.masterMixer.limitSourceCount(this.maxSourceCount);
+    }
+
+    protected PreparedVoices getPreparedVoices(final List<Note> notes) {
+        return this.prepareVoices(notes);
+    }
+
+    protected PreparedVoices prepareVoices(final List<Note> notes) {
+        // May run on another thread than the player, so the settings are read once and used for the whole tick
+        final float admissionThreshold = this.admissionThreshold;
+        final boolean nearestNeighbourPitch = this.nearestNeighbourPitch;
+        final Map<NoteVoice, NoteAudioSource> voices = new LinkedHashMap<>();
+        float minVolume = 0F;
         for (Note note : notes) {
-            final String sound;
-            if (note.getInstrument() instanceof MinecraftInstrument instrument) {
-                sound = SoundMap.INSTRUMENT_SOUNDS.get(instrument);
-            } else if (note.getInstrument() instanceof NbsCustomInstrument instrument) {
-                sound = instrument.getSoundFilePathOr("").replace(File.separatorChar, '/');
-            } else {
-                throw new IllegalArgumentException("Unsupported instrument class: " + note.getInstrument().getClass().getName());
-            }
+            final String sound = getSound(note);
             if (note.getVolume() > 0F && this.sounds.containsKey(sound)) {
-                this.masterMixer.add(new NoteAudioSource(this.sounds.get(sound), note));
+                // Notes with the same sound, pitch and panning only differ in gain and can be played by a single source
+                final NoteAudioSource voice = voices.computeIfAbsent(new NoteVoice(sound, note.getPitch(), note.getPanning()), k -> this.createVoice(sound, note.getPitch(), nearestNeighbourPitch));
+                voice.addNote(note);
+                minVolume = Math.max(minVolume, voice.volume);
             }
         }
-        this.masterMixer.limitSourceCount(this.maxSourceCount);
+        minVolume *= admissionThreshold;
+
+        final List<NoteAudioSource> admittedVoices = new ArrayList<>(voices.size());
+        int droppedNotes = 0;
+        for (NoteAudioSource voice : voices.values()) {
+            if (voice.volume < minVolume) { // Masked by the louder notes of this tick
+                droppedNotes += voice.notes.size();
+                continue;
+            }
+            voice.applyNoteProperties();
+            admittedVoices.add(voice);
+        }
+        return new PreparedVoices(notes, admittedVoices, droppedNotes);
+    }
+
+    private static String getSound(final Note note) {
+        if (note.getInstrument() instanceof MinecraftInstrument instrument) {
+            return SoundMap.INSTRUMENT_SOUNDS.get(instrument);
+        } else if (note.getInstrument() instanceof NbsCustomInstrument instrument) {
+            return instrument.getSoundFilePathOr("").replace(File.separatorChar, '/');
+        } else {
+            throw new IllegalArgumentException("Unsupported instrument class: " + note.getInstrument().getClass().getName());
+        }
+    }
+
+    private NoteAudioSource createVoice(final String sound, final float pitch, final boolean nearestNeighbourPitch) {
+        if (!nearestNeighbourPitch) {
+            return new NoteAudioSource(this.sounds.get(sound));
+        }
+        // Every sound is resampled once per pitch by repeating or skipping samples, the voice then plays it without interpolation
+        final NoteAudioSource voice = new NoteAudioSource(this.pitchedSounds.computeIfAbsent(new NoteVoice(sound, pitch, 0F), k -> resampleNearest(this.sounds.get(sound), pitch)));
+        voice.prePitched = true;
+        return voice;
+    }
+
+    private static AudioBuffer resampleNearest(final AudioBuffer sound, final float pitch) {
+        final float[] samples = sound.samples();
+        final float[] pitchedSamples = new float[(int) (samples.length / pitch)];
+        for (int i = 0; i < pitchedSamples.length; i++) {
+            pitchedSamples[i] = samples[Math.min(samples.length - 1, (int) (i * pitch))];
+        }
+        return new AudioBuffer(sound.format(), pitchedSamples);
     }
 
     @Override
     protected void handleEvents(final List<Event> events) {
+        this.renderPendingFrames();
         for (Event event : events) {
             if (event instanceof NbsSoundStopperEvent soundStopperEvent) {
                 this.masterMixer.forEach(source -> {
-                    if (source instanceof NoteAudioSource noteAudioSource && soundStopperEvent.shouldStop(noteAudioSource.note)) {
-                        final GainProcessor gainProcessor = new GainProcessor();
-                        source.processors().add(gainProcessor);
-                        final FiniteAutomation automation = new LinearRampAutomation(gainProcessor.gain(), 0F, 100F);
-                        automation.finishListeners().add(ignored1 -> this.audioMixer.preRenderActions().add(ignored2 -> this.masterMixer.remove(source)));
-                        source.automations().add(automation);
+                    if (source instanceof NoteAudioSource noteAudioSource) {
+                        final float remainingGain = noteAudioSource.stopNotes(soundStopperEvent);
+                        if (remainingGain < 1F) {
+                            final GainProcessor gainProcessor = new GainProcessor();
+                            source.processors().add(gainProcessor);
+                            final FiniteAutomation automation = new LinearRampAutomation(gainProcessor.gain(), remainingGain, 100F);
+                            if (remainingGain <= 0F) {
+                                automation.finishListeners().add(ignored1 -> this.audioMixer.preRenderActions().add(ignored2 -> this.masterMixer.remove(source)));
+                            }
+                            source.automations().add(automation);
+                        }
                     }
                 });
             }
@@ -118,30 +218,219 @@ public abstract class SongRenderer extends SongPlayer implements AutoCloseable {
         if (this.isRunning()) {
             this.tick();
         }
-        float millis = 1000F / this.getCurrentTicksPerSecond();
-        if (this.timingJitter) {
-            millis += ThreadLocalRandom.current().nextFloat(-1F, 1F);
-            if (millis <= 0F) {
-                millis = 0.1F;
+        return this.mix(this.getTickMillis());
+    }
+
+    public AudioBuffer renderBlock(final int frameCount) {
+        this.blockBufferBuilder = new AudioBufferBuilder(this.audioMixer.getAudioFormat(), frameCount * this.audioMixer.getAudioFormat().channels());
+        final long blockEnd = this.blockPosition + frameCount;
+        while (this.blockPosition < blockEnd) {
+            if (this.nextTickFrame <= this.blockPosition) {
+                if (this.isRunning()) {
+                    this.tick(); // Renders all frames up to the tick onset before adding new sounds
+                }
+                this.nextTickFrame += this.getTickMillis() * this.audioMixer.getAudioFormat().sampleRate() / 1000D;
+            }
+            this.blockPosition = Math.min(blockEnd, (long) Math.ceil(this.nextTickFrame));
+        }
+        this.renderPendingFrames();
+        final AudioBuffer block = this.blockBufferBuilder.build();
+        this.blockBufferBuilder = null;
+        return block;
+    }
+
+    public void warmUp(final float millis) {
+        // Render bursts of notes with all loaded sounds into a scratch mixer, so the mixing code is compiled before it is needed.
+        // Threaded mixing modes also warm up a parallel mixer, because adaptive mixing switches to it under load. It is rendered through its own scratch mixer, so it never counts against a source limit
+        final LimitingAudioMixer inlineScratchMixer = new LimitingAudioMixer(this.audioMixer.getAudioFormat());
+        final LimitingAudioMixer parallelScratchMixer = this.mixingMode.isThreaded() ? new LimitingAudioMixer(this.audioMixer.getAudioFormat()) : null;
+        final MultithreadedMixer multithreadedMixer = parallelScratchMixer != null ? new MultithreadedMixer(Runtime.getRuntime().availableProcessors()) : null;
+        try {
+            if (parallelScratchMixer != null) {
+                parallelScratchMixer.add(multithreadedMixer);
+            }
+            final float[] pitches = {0.5F, 1F, 2F};
+            final float[] pannings = {-0.5F, 0F, 0.5F};
+            boolean parallel = false;
+            for (float renderedMillis = 0F; renderedMillis < millis && !Thread.currentThread().isInterrupted(); renderedMillis += 10F) {
+                final Mixer mixer = parallel ? multithreadedMixer : inlineScratchMixer;
+                for (AudioBuffer sound : this.sounds.values()) {
+                    for (int i = 0; i < pitches.length; i++) {
+                        final NoteAudioSource source = new NoteAudioSource(sound);
+                        source.pitch().set(pitches[i]);
+                        source.processors().add(new GainPanProcessor(0.5F, pannings[i]));
+                        mixer.add(source);
+                    }
+                }
+                mixer.limitSourceCount(Math.min(this.maxSourceCount, 256));
+                (parallel ? parallelScratchMixer : inlineScratchMixer).renderMillis(10F);
+                parallel = parallelScratchMixer != null && !parallel;
+            }
+        } finally {
+            if (multithreadedMixer != null) {
+                multithreadedMixer.close();
             }
         }
-        return this.audioMixer.renderMillis(millis);
     }
 
     public AudioBuffer renderSong() throws InterruptedException {
         final int expectedSampleCount = this.audioMixer.getAudioFormat().millisToSampleCount((this.getSong().getLengthInSeconds() + 1) * 1000F);
         final AudioBufferBuilder bufferBuilder = new AudioBufferBuilder(this.audioMixer.getAudioFormat(), expectedSampleCount);
+        this.blockPosition = 0;
+        this.renderedFrames = 0;
+        this.nextTickFrame = 0;
+        final long start = System.nanoTime();
         this.start();
         while (this.isRunning()) {
-            bufferBuilder.append(this.renderTick());
+            bufferBuilder.append(this.renderBlock(RENDER_BLOCK_FRAMES));
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedException();
+            }
+            if (this.maxRealtimeFactor > 0F) {
+                // Sleep whenever the render is ahead of the target speed, the total is compared so short sleeps don't add up to drift
+                final long targetNanos = (long) (this.renderedFrames / this.audioMixer.getAudioFormat().sampleRate() / this.maxRealtimeFactor * 1_000_000_000D);
+                final long aheadMillis = (targetNanos - (System.nanoTime() - start)) / 1_000_000;
+                if (aheadMillis > 0) {
+                    Thread.sleep(aheadMillis);
+                }
+            }
+        }
+        bufferBuilder.append(this.mix(750F));
+        return bufferBuilder.build();
+    }
+
+    public AudioBuffer renderClip(final int preRollTick, final float preRollSeconds, final float lengthInSeconds) throws InterruptedException {
+        // Playback starts before the clip, so notes which are still sounding at the start of the clip are heard. The pre-roll itself is discarded
+        final FloatAudioFormat audioFormat = this.audioMixer.getAudioFormat();
+        final long preRollFrames = (long) (preRollSeconds * audioFormat.sampleRate());
+        final long clipFrames = (long) (lengthInSeconds * audioFormat.sampleRate());
+        final AudioBufferBuilder bufferBuilder = new AudioBufferBuilder(audioFormat, (int) (clipFrames * audioFormat.channels()));
+        this.blockPosition = 0;
+        this.renderedFrames = 0;
+        this.nextTickFrame = 0;
+        this.start(0, preRollTick);
+        long frame = 0;
+        while (this.isRunning() && frame < preRollFrames + clipFrames) {
+            final long frameCount = frame < preRollFrames ? Math.min(RENDER_BLOCK_FRAMES, preRollFrames - frame) : Math.min(RENDER_BLOCK_FRAMES, preRollFrames + clipFrames - frame);
+            final AudioBuffer block = this.renderBlock((int) frameCount);
+            if (frame >= preRollFrames) {
+                bufferBuilder.append(block);
+            }
+            frame += block.getFrameCount();
             if (Thread.currentThread().isInterrupted()) {
                 throw new InterruptedException();
             }
         }
-        bufferBuilder.append(this.audioMixer.renderMillis(750F));
+        if (frame < preRollFrames + clipFrames) { // The song ended before the end of the clip
+            final float remainingMillis = (preRollFrames + clipFrames - frame) * 1000F / audioFormat.sampleRate();
+            if (frame < preRollFrames) {
+                this.mix((preRollFrames - frame) * 1000F / audioFormat.sampleRate());
+            }
+            bufferBuilder.append(this.mix(Math.min(750F, Math.min(remainingMillis, lengthInSeconds * 1000F))));
+        }
+        this.stop();
         return bufferBuilder.build();
     }
 
+    private void renderPendingFrames() {
+        if (this.blockBufferBuilder != null && this.blockPosition > this.renderedFrames) {
+            final AudioBuffer buffer = this.mix((this.blockPosition - this.renderedFrames) * 1000F / this.audioMixer.getAudioFormat().sampleRate());
+            this.renderedFrames += buffer.getFrameCount(); // Rounding errors of the mixer are compensated by the next call
+            this.blockBufferBuilder.append(buffer);
+        }
+    }
+
+    private AudioBuffer mix(final float millis) {
+        if (this.deterministic || (this.mixingMode != MixingMode.ADAPTIVE && (this.mixingMode != MixingMode.MULTITHREADED || this.cpuBudget == null))) {
+            return this.audioMixer.renderMillis(millis);
+        }
+        this.updateMixingStrategy();
+
+        final long start = System.nanoTime();
+        final AudioBuffer buffer = this.audioMixer.renderMillis(millis);
+        final int mixedSourceCount = this.masterMixer.getMixedSourceCount();
+        if (this.masterMixer == this.audioMixer && mixedSourceCount > 0 && buffer.getFrameCount() > 0) { // Only inline mixing shows the real cost per source
+            final float cost = (float) (System.nanoTime() - start) / mixedSourceCount / buffer.getFrameCount();
+            this.nanosPerSourceFrame = this.nanosPerSourceFrame == 0F ? cost : this.nanosPerSourceFrame * 0.9F + cost * 0.1F;
+        }
+        return buffer;
+    }
+
+    private void updateMixingStrategy() {
+        final boolean multithreaded = this.masterMixer != this.audioMixer;
+        boolean parallel = true;
+        if (this.mixingMode == MixingMode.ADAPTIVE) {
+            // Switch between inline and parallel mixing based on the estimated mixing cost of the current sources
+            final int sourceCount = this.masterMixer.getMixedSourceCount();
+            final float nanosPerFrame = sourceCount * this.nanosPerSourceFrame;
+            if (multithreaded) {
+                parallel = sourceCount > INLINE_MIXING_MAX_SOURCES && nanosPerFrame > INLINE_MIXING_MAX_NANOS_PER_FRAME;
+            } else {
+                parallel = sourceCount >= PARALLEL_MIXING_MIN_SOURCES && nanosPerFrame >= PARALLEL_MIXING_MIN_NANOS_PER_FRAME;
+            }
+        }
+        if (this.cpuBudget == null) {
+            this.setMixerThreads(parallel ? Runtime.getRuntime().availableProcessors() : 1);
+            return;
+        }
+
+        if (parallel && multithreaded && this.cpuBudget.isContended()) {
+            // Song workers are waiting for a core. The released cores aren't taken back for a while, so the mixer doesn't switch back and forth
+            parallel = false;
+            this.parallelMixingBackoffEnd = System.nanoTime() + PARALLEL_MIXING_BACKOFF_NANOS;
+        }
+        if (!parallel) {
+            this.releaseMixerCores();
+        } else if (!multithreaded && System.nanoTime() - this.parallelMixingBackoffEnd >= 0) {
+            // The rendering thread already holds one core, the parallel mixer gets one thread per additional core
+            this.mixerCores = this.cpuBudget.tryAcquire(Runtime.getRuntime().availableProcessors() - 1);
+        }
+        this.setMixerThreads(1 + this.mixerCores);
+    }
+
+    private void releaseMixerCores() {
+        if (this.mixerCores > 0) {
+            this.cpuBudget.release(this.mixerCores);
+            this.mixerCores = 0;
+        }
+    }
+
+    private void setMixerThreads(final int threadCount) {
+        final Mixer newMixer = threadCount > 1 ? this.multithreadedMixers.computeIfAbsent(threadCount, MultithreadedMixer::new) : this.audioMixer;
+        if (this.masterMixer == newMixer) {
+            return;
+        }
+        final List<AudioSource> sources = new ArrayList<>();
+        this.masterMixer.forEach(source -> {
+            if (source instanceof NoteAudioSource) {
+                sources.add(source);
+            }
+        });
+        for (AudioSource source : sources) {
+            this.masterMixer.remove(source);
+            newMixer.add(source);
+        }
+        if (this.masterMixer != this.audioMixer) {
+            this.audioMixer.remove(this.masterMixer);
+        }
+        if (newMixer != this.audioMixer) {
+            this.audioMixer.add(newMixer);
+        }
+        this.masterMixer = newMixer;
+    }
+
+    private float getTickMillis() {
+        float millis = 1000F / this.getCurrentTicksPerSecond();
+        if (this.timingJitter) {
+            final RandomGenerator random = this.timingJitterRandom != null ? this.timingJitterRandom : ThreadLocalRandom.current();
+            millis += random.nextFloat(-1F, 1F);
+            if (millis <= 0F) {
+                millis = 0.1F;
+            }
+        }
+        return millis;
+    }
+
     @Override
     public void start(final int delay, final int tick) {
         super.start(delay, tick);
@@ -195,34 +484,148 @@ public abstract class SongRenderer extends SongPlayer implements AutoCloseable {
         this.timingJitter = timingJitter;
     }
 
+    public void setDeterministic(final boolean deterministic) {
+        this.deterministic = deterministic;
+        if (deterministic) {
+            // Seed the timing jitter from the notes of the song and always mix inline, so the sources are summed in the same order on every run
+            this.timingJitterRandom = new SplittableRandom(this.getContentHash());
+            this.releaseMixerCores();
+            this.setMixerThreads(1);
+        } else {
+            this.timingJitterRandom = null;
+        }
+    }
+
+    private long getContentHash() {
+        final Song song = this.getSong();
+        long hash = 1125899906842597L;
+        for (int tick = 0; tick <= song.getNotes().getLengthInTicks(); tick++) {
+            for (Note note : song.getNotes().getOrEmpty(tick)) {
+                hash = 31 * hash + tick;
+                hash = 31 * hash + getSound(note).hashCode();
+                hash = 31 * hash + Float.floatToIntBits(note.getPitch());
+                hash = 31 * hash + Float.floatToIntBits(note.getVolume());
+                hash = 31 * hash + Float.floatToIntBits(note.getPanning());
+            }
+            hash = 31 * hash + Float.floatToIntBits(song.getTempoEvents().get(tick));
+        }
+        return hash;
+    }
+
+    public void setCpuBudget(final CpuBudget cpuBudget) {
+        // Parallel mixing only uses cores which aren't needed by other songs of the same export
+        this.releaseMixerCores();
+        this.setMixerThreads(1);
+        this.cpuBudget = cpuBudget;
+    }
+
+    public void setNearestNeighbourPitch(final boolean nearestNeighbourPitch) {
+        this.nearestNeighbourPitch = nearestNeighbourPitch;
+    }
+
+    public void setMaxRealtimeFactor(final float maxRealtimeFactor) {
+        this.maxRealtimeFactor = maxRealtimeFactor;
+    }
+
+    public void setNoteAdmissionThreshold(final float decibels) {
+        this.admissionThreshold = decibels > 0F ? (float) Math.pow(10, -decibels / 20F) : 0F;
+    }
+
+    public float getLongestSoundSeconds() {
+        float longestSoundSeconds = 0F;
+        for (AudioBuffer sound : this.sounds.values()) {
+            longestSoundSeconds = Math.max(longestSoundSeconds, sound.getFrameCount() / sound.format().sampleRate());
+        }
+        return longestSoundSeconds;
+    }
+
+    public int getSoundRegistryVersion() {
+        return this.soundRegistryVersion;
+    }
+
+    public long getDroppedNoteCount() {
+        return this.droppedNotes;
+    }
+
+    public int getActiveVoiceCount() {
+        return this.masterMixer.getMixedSourceCount();
+    }
+
     public List<String> getStatusLines() {
         final List<String> statusLines = new ArrayList<>();
         statusLines.add("Sounds: " + this.masterMixer.getMixedSourceCount() + " / " + this.maxSourceCount);
+        if (this.mixingMode == MixingMode.ADAPTIVE) {
+            statusLines.add("Mixing: " + (this.masterMixer != this.audioMixer ? MixingMode.MULTITHREADED : MixingMode.SINGLE_THREADED));
+        }
+        if (this.admissionThreshold > 0F) {
+            statusLines.add("Dropped Notes: " + this.lastTickDroppedNotes + " / tick (" + this.droppedNotes + " total)");
+        }
         return statusLines;
     }
 
     @Override
     public void close() {
         this.stop();
+        this.releaseMixerCores();
+        this.setMixerThreads(1);
+        // Every core count the budget handed out got its own mixer with its own threads
+        this.multithreadedMixers.values().forEach(MultithreadedMixer::close);
+        this.multithreadedMixers.clear();
+    }
+
+    protected record PreparedVoices(List<Note> notes, List<NoteAudioSource> voices, int droppedNotes) {
     }
 
-    private static class NoteAudioSource extends BufferedAudioSource {
+    private record NoteVoice(String sound, float pitch, float panning) {
+    }
+
+    protected static class NoteAudioSource extends BufferedAudioSource {
 
-        private final Note note;
+        private final List<Note> notes = new ArrayList<>(1);
+        private float volume;
+        private boolean prePitched;
 
-        public NoteAudioSource(final AudioBuffer buffer, final Note note) {
+        public NoteAudioSource(final AudioBuffer buffer) {
             super(buffer);
-            this.note = note;
-            this.pitch().set(note.getPitch());
-            if (note.getPanning() != 0F && note.getVolume() != 1F) {
-                this.processors().add(new GainPanProcessor(note.getVolume(), note.getPanning()));
-            } else if (note.getVolume() != 1F) {
-                this.processors().add(new GainProcessor(note.getVolume()));
+        }
+
+        private void addNote(final Note note) {
+            this.notes.add(note);
+            this.volume += note.getVolume();
+        }
+
+        private void applyNoteProperties() {
+            final Note note = this.notes.get(0);
+            if (!this.prePitched) {
+                this.pitch().set(note.getPitch());
+            }
+            if (note.getPanning() != 0F && this.volume != 1F) {
+                this.processors().add(new GainPanProcessor(this.volume, note.getPanning()));
+            } else if (this.volume != 1F) {
+                this.processors().add(new GainProcessor(this.volume));
             } else if (note.getPanning() != 0F) {
                 this.processors().add(new PanProcessor(note.getPanning()));
             }
         }
 
+        private float stopNotes(final NbsSoundStopperEvent soundStopperEvent) {
+            if (this.notes.isEmpty()) { // Already stopped
+                return 1F;
+            }
+            final float previousVolume = this.volume;
+            this.notes.removeIf(note -> {
+                if (soundStopperEvent.shouldStop(note)) {
+                    this.volume -= note.getVolume();
+                    return true;
+                }
+                return false;
+            });
+            if (this.notes.isEmpty()) {
+                return 0F;
+            }
+            return this.volume / previousVolume;
+        }
+
     }
 
 }
@@ -17,31 +17,68 @@
  */
 package net.raphimc.noteblocktool.audio.renderer.impl;
 
-import it.unimi.dsi.fastutil.floats.FloatConsumer;
 import net.raphimc.audiomixer.util.FloatAudioFormat;
+import net.raphimc.audiomixer.util.buffer.AudioBuffer;
 import net.raphimc.noteblocklib.model.note.Note;
 import net.raphimc.noteblocklib.model.song.Song;
+import net.raphimc.noteblocktool.audio.SoundRegistry;
+import net.raphimc.noteblocktool.audio.renderer.MixingMode;
 import net.raphimc.noteblocktool.audio.renderer.SongRenderer;
+import net.raphimc.noteblocktool.export.ExportProgress;
 
 import java.util.List;
 
 public class ProgressSongRenderer extends SongRenderer {
 
-    private final FloatConsumer progressConsumer;
+    private final ExportProgress progress;
     private final int noteCount;
+    private final float sampleRate;
+    private long renderedFrames;
+    private long skippedFrames;
     private int processedNotes;
+    private int progressStartTick = -1;
+    private int progressEndTick;
 
-    public ProgressSongRenderer(final Song song, final int maxSounds, final boolean limited, final boolean threaded, final FloatAudioFormat audioFormat, final FloatConsumer progressConsumer) {
-        super(song, maxSounds, limited, threaded, audioFormat);
+    public ProgressSongRenderer(final Song song, final SoundRegistry soundRegistry, final int maxSounds, final boolean limited, final MixingMode mixingMode, final FloatAudioFormat audioFormat, final ExportProgress progress) {
+        super(song, soundRegistry, maxSounds, limited, mixingMode, audioFormat);
         this.noteCount = song.getNotes().getNoteCount();
-        this.progressConsumer = progressConsumer;
+        this.sampleRate = audioFormat.sampleRate();
+        this.progress = progress;
+    }
+
+    @Override
+    public AudioBuffer renderBlock(final int frameCount) {
+        final AudioBuffer block = super.renderBlock(frameCount);
+        this.renderedFrames += block.getFrameCount();
+        this.progress.setRenderedSeconds(Math.max(0, this.renderedFrames - this.skippedFrames) / this.sampleRate);
+        return block;
+    }
+
+    @Override
+    public AudioBuffer renderClip(final int preRollTick, final float preRollSeconds, final float lengthInSeconds) throws InterruptedException {
+        // The pre-roll is rendered but not part of the clip
+        this.renderedFrames = 0;
+        this.skippedFrames = (long) (preRollSeconds * this.sampleRate);
+        return super.renderClip(preRollTick, preRollSeconds, lengthInSeconds);
     }
 
     @Override
     protected void playNotes(final List<Note> notes) {
         super.playNotes(notes);
         this.processedNotes += notes.size();
-        this.progressConsumer.accept(((float) this.processedNotes / this.noteCount) * 100F);
+        final float progress;
+        if (this.progressStartTick >= 0) {
+            progress = Math.min(100F, (float) (this.getTick() - this.progressStartTick) / Math.max(1, this.progressEndTick - this.progressStartTick) * 100F);
+        } else {
+            progress = ((float) this.processedNotes / this.noteCount) * 100F;
+        }
+        this.progress.update(progress, this.processedNotes, this.getActiveVoiceCount());
+    }
+
+    public void setProgressTicks(final int startTick, final int endTick) {
+        // Clips only play a part of the song, so the progress is based on the position instead of the note count
+        this.progressStartTick = startTick;
+        this.progressEndTick = endTick;
     }
 
 }
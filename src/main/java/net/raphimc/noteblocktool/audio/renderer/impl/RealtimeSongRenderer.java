@@ -19,37 +19,235 @@ package net.raphimc.noteblocktool.audio.renderer.impl;
 
 import net.raphimc.audiomixer.util.FloatAudioFormat;
 import net.raphimc.audiomixer.util.SourceDataLineWriter;
+import net.raphimc.audiomixer.util.buffer.AudioBuffer;
+import net.raphimc.noteblocklib.model.note.Note;
 import net.raphimc.noteblocklib.model.song.Song;
+import net.raphimc.noteblocktool.audio.renderer.MixingMode;
 import net.raphimc.noteblocktool.audio.renderer.SongRenderer;
+import net.raphimc.noteblocktool.util.ExceptionUtil;
 
 import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.SourceDataLine;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 
 public class RealtimeSongRenderer extends SongRenderer {
 
+    private static final int LOOKAHEAD_TICKS = 8;
+    private static final float WARM_UP_MILLIS = 1000F;
+    private static final int STABLE_RENDER_COUNT = 200;
+    private static volatile boolean warmedUp;
+
+    private final Queue<PreparedTick> preparedTicks = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger seekCount = new AtomicInteger();
+    private final Thread lookaheadThread;
+    private final Thread warmUpThread;
+    private final SourceDataLine sourceDataLine;
     private final SourceDataLineWriter sourceDataLineWriter;
+    private volatile int playbackTick;
+    private volatile boolean playbackActive;
+    private volatile long warmUpNanos = -1;
+    private volatile Throwable warmUpError;
+    private long playbackStartTime;
+    private long stablePlaybackNanos = -1;
+    private int continuousRenderCount;
+    private int underrunCount;
+    private long preparedTickHits;
+    private long preparedTickMisses;
 
-    public RealtimeSongRenderer(final Song song, final int maxSounds, final boolean limited, final boolean threaded, final FloatAudioFormat audioFormat) {
-        super(song, maxSounds, limited, threaded, audioFormat);
+    public RealtimeSongRenderer(final Song song, final int maxSounds, final boolean limited, final MixingMode mixingMode, final FloatAudioFormat audioFormat) {
+        super(song, maxSounds, limited, mixingMode, audioFormat);
         try {
-            this.sourceDataLineWriter = new SourceDataLineWriter(AudioSystem.getSourceDataLine(audioFormat.toJavaPcmAudioFormat(Short.SIZE)), 50, this::renderTick);
-            this.sourceDataLineWriter.start();
+            this.sourceDataLine = AudioSystem.getSourceDataLine(audioFormat.toJavaPcmAudioFormat(Short.SIZE));
+            this.sourceDataLineWriter = new SourceDataLineWriter(this.sourceDataLine, 50, this::renderTick);
         } catch (Throwable e) {
             throw new RuntimeException("Failed to open SourceDataLine", e);
         }
+        this.lookaheadThread = new Thread(this::runLookahead, "Song Lookahead Thread");
+        this.lookaheadThread.setDaemon(true);
+        this.lookaheadThread.start();
+        if (warmedUp) { // The mixing code stays compiled, so only the first renderer of the process has to warm it up
+            this.warmUpThread = null;
+            this.warmUpNanos = 0;
+            this.sourceDataLineWriter.start();
+            return;
+        }
+        this.warmUpThread = new Thread(() -> {
+            final long start = System.nanoTime();
+            try {
+                this.warmUp(WARM_UP_MILLIS);
+                warmedUp = !Thread.currentThread().isInterrupted();
+            } catch (Throwable t) { // Playback works without warm-up, it just might crackle at the start
+                this.warmUpError = t;
+            }
+            this.warmUpNanos = System.nanoTime() - start;
+            if (!Thread.currentThread().isInterrupted()) {
+                this.sourceDataLineWriter.start();
+            }
+        }, "Song Warm-up Thread");
+        this.warmUpThread.setDaemon(true);
+        this.warmUpThread.start();
+    }
+
+    @Override
+    public AudioBuffer renderTick() {
+        if (this.playbackStartTime == 0) {
+            this.playbackStartTime = System.nanoTime();
+        } else if (this.stablePlaybackNanos < 0 && this.isRunning() && !this.isPaused()) {
+            // The line has played everything that was written to it when it is asked for more, that is an audible underrun.
+            // Playback is stable once enough consecutive buffers were rendered without one
+            if (this.sourceDataLine.available() < this.sourceDataLine.getBufferSize()) {
+                if (++this.continuousRenderCount >= STABLE_RENDER_COUNT) {
+                    this.stablePlaybackNanos = System.nanoTime() - this.playbackStartTime;
+                }
+            } else {
+                this.continuousRenderCount = 0;
+                this.underrunCount++;
+            }
+        }
+        return super.renderTick();
+    }
+
+    @Override
+    protected PreparedVoices getPreparedVoices(final List<Note> notes) {
+        final int seekCount = this.seekCount.get();
+        final int tick = this.getTick();
+        PreparedTick preparedTick;
+        while ((preparedTick = this.preparedTicks.peek()) != null) {
+            if (preparedTick.seekCount() != seekCount || preparedTick.tick() < tick) {
+                this.preparedTicks.poll(); // Prepared before a seek or for a tick which has been skipped
+            } else if (preparedTick.tick() == tick && preparedTick.voices().notes().equals(notes)) {
+                this.preparedTicks.poll();
+                this.preparedTickHits++;
+                return preparedTick.voices();
+            } else {
+                break;
+            }
+        }
+        this.preparedTickMisses++;
+        return super.getPreparedVoices(notes);
+    }
+
+    @Override
+    public void start(final int delay, final int tick) {
+        super.start(delay, tick);
+        this.publishPlaybackState();
+    }
+
+    @Override
+    public void stop() {
+        super.stop();
+        this.publishPlaybackState();
+    }
+
+    @Override
+    public void setPaused(final boolean paused) {
+        super.setPaused(paused);
+        this.publishPlaybackState();
+    }
+
+    @Override
+    public void setTick(final int tick) {
+        super.setTick(tick);
+        this.discardPreparedTicks();
+    }
+
+    @Override
+    protected void tick() {
+        super.tick();
+        this.publishPlaybackState();
+    }
+
+    @Override
+    public void setNearestNeighbourPitch(final boolean nearestNeighbourPitch) {
+        super.setNearestNeighbourPitch(nearestNeighbourPitch);
+        this.discardPreparedTicks();
+    }
+
+    @Override
+    public void setNoteAdmissionThreshold(final float decibels) {
+        super.setNoteAdmissionThreshold(decibels);
+        this.discardPreparedTicks();
     }
 
     @Override
     public List<String> getStatusLines() {
         final List<String> statusLines = super.getStatusLines();
         statusLines.add("Audio Renderer CPU Load: " + (int) this.sourceDataLineWriter.getProcessingLoad() + "%");
+        if (this.warmUpNanos < 0) {
+            statusLines.add("Warming up...");
+        } else if (this.warmUpError != null) {
+            statusLines.add("Warm-up failed: " + ExceptionUtil.getDescription(this.warmUpError));
+        } else if (this.stablePlaybackNanos >= 0) {
+            statusLines.add("Warm-up: " + this.warmUpNanos / 1_000_000 + " ms, Stable after: " + this.stablePlaybackNanos / 1_000_000 + " ms (" + this.underrunCount + " underruns)");
+        }
+        if (this.preparedTickHits + this.preparedTickMisses > 0) {
+            statusLines.add("Lookahead Hit Rate: " + (int) (this.preparedTickHits * 100 / (this.preparedTickHits + this.preparedTickMisses)) + "%");
+        }
         return statusLines;
     }
 
     @Override
     public void close() {
+        this.lookaheadThread.interrupt();
+        if (this.warmUpThread != null) {
+            this.warmUpThread.interrupt();
+            try {
+                this.warmUpThread.join();
+            } catch (InterruptedException ignored) {
+            }
+        }
         this.sourceDataLineWriter.close();
         super.close();
     }
 
+    private void discardPreparedTicks() {
+        // Ticks prepared with the old settings are dropped like after a seek, the lookahead prepares them again
+        this.seekCount.incrementAndGet();
+        this.publishPlaybackState();
+    }
+
+    private void publishPlaybackState() {
+        // The player state isn't thread-safe, so the lookahead thread only reads these copies and is woken up whenever they change
+        this.playbackTick = this.getTick();
+        this.playbackActive = this.isRunning() && !this.isPaused();
+        if (this.lookaheadThread != null) {
+            LockSupport.unpark(this.lookaheadThread);
+        }
+    }
+
+    private void runLookahead() {
+        int seekCount = -1;
+        int nextTick = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            if (seekCount != this.seekCount.get()) {
+                seekCount = this.seekCount.get();
+                nextTick = this.playbackTick;
+            }
+            final int currentTick = this.playbackTick;
+            if (nextTick < currentTick) { // The audio thread overtook the lookahead
+                nextTick = currentTick;
+            }
+            if (!this.playbackActive || nextTick >= currentTick + LOOKAHEAD_TICKS || nextTick > this.getSong().getNotes().getLengthInTicks()) {
+                LockSupport.park(this);
+                continue;
+            }
+            final List<Note> notes = this.getSong().getNotes().getOrEmpty(nextTick);
+            if (!notes.isEmpty()) {
+                try {
+                    this.preparedTicks.offer(new PreparedTick(seekCount, nextTick, this.prepareVoices(notes)));
+                } catch (Throwable t) { // The audio thread will prepare the voices itself
+                    t.printStackTrace();
+                }
+            }
+            nextTick++;
+        }
+    }
+
+    private record PreparedTick(int seekCount, int tick, PreparedVoices voices) {
+    }
+
 }
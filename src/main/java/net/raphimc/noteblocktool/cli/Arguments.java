@@ -0,0 +1,86 @@
+/*
+ * This file is part of NoteBlockTool - https://github.com/RaphiMC/NoteBlockTool
+ * Copyright (C) 2022-2026 RK_01/RaphiMC and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.raphimc.noteblocktool.cli;
+
+import java.util.*;
+
+public class Arguments {
+
+    private final Map<String, String> options = new HashMap<>();
+    private final Set<String> flags = new HashSet<>();
+    private final List<String> positionals = new ArrayList<>();
+
+    public Arguments(final String[] args, final Set<String> knownOptions, final Set<String> knownFlags) {
+        for (int i = 0; i < args.length; i++) {
+            final String arg = args[i];
+            if (!arg.startsWith("--")) {
+                this.positionals.add(arg);
+            } else if (knownFlags.contains(arg)) {
+                this.flags.add(arg);
+            } else if (knownOptions.contains(arg)) {
+                if (i + 1 >= args.length) {
+                    throw new UsageException("Missing value for " + arg);
+                }
+                this.options.put(arg, args[++i]);
+            } else {
+                throw new UsageException("Unknown option: " + arg);
+            }
+        }
+    }
+
+    public boolean has(final String name) {
+        return this.flags.contains(name) || this.options.containsKey(name);
+    }
+
+    public String getString(final String name, final String defaultValue) {
+        return this.options.getOrDefault(name, defaultValue);
+    }
+
+    public int getInt(final String name, final int defaultValue, final int min, final int max) {
+        final String value = this.options.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            final int intValue = Integer.parseInt(value);
+            if (intValue < min || intValue > max) {
+                throw new UsageException("Value of " + name + " must be between " + min + " and " + max + ": " + value);
+            }
+            return intValue;
+        } catch (NumberFormatException e) {
+            throw new UsageException("Invalid number for " + name + ": " + value);
+        }
+    }
+
+    public <E extends Enum<E>> E getEnum(final String name, final E defaultValue) {
+        final String value = this.options.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Enum.valueOf(defaultValue.getDeclaringClass(), value.toUpperCase(Locale.ROOT).replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new UsageException("Invalid value for " + name + ": " + value);
+        }
+    }
+
+    public List<String> getPositionals() {
+        return this.positionals;
+    }
+
+}
@@ -0,0 +1,346 @@
+/*
+ * This file is part of NoteBlockTool - https://github.com/RaphiMC/NoteBlockTool
+ * Copyright (C) 2022-2026 RK_01/RaphiMC and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.raphimc.noteblocktool.cli;
+
+import net.raphimc.audiomixer.util.FloatAudioFormat;
+import net.raphimc.noteblocklib.NoteBlockLib;
+import net.raphimc.noteblocklib.format.SongFormat;
+import net.raphimc.noteblocklib.model.song.Song;
+import net.raphimc.noteblocktool.audio.SoundMap;
+import net.raphimc.noteblocktool.audio.SoundRegistry;
+import net.raphimc.noteblocktool.audio.library.LameLibrary;
+import net.raphimc.noteblocktool.audio.renderer.MixingMode;
+import net.raphimc.noteblocktool.audio.renderer.RenderProfile;
+import net.raphimc.noteblocktool.export.*;
+import net.raphimc.noteblocktool.export.distributed.ExportCoordinator;
+import net.raphimc.noteblocktool.export.distributed.ExportWorker;
+import net.raphimc.noteblocktool.export.distributed.JobResult;
+import net.raphimc.noteblocktool.export.distributed.WorkerProtocol;
+import net.raphimc.noteblocktool.util.ExceptionUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+public class NoteBlockToolCli {
+
+    private static final long MEBIBYTE = 1024 * 1024;
+
+    private static final Set<String> EXPORT_OPTIONS = Set.of("--format", "--sample-rate", "--channels", "--bit-depth", "--mp3-quality", "--outputs", "--volume", "--max-sounds", "--admission-threshold", "--mixing-mode", "--threads", "--memory-budget", "--archive", "--coordinator", "--local-workers", "--worker-threads", "--retries", "--metrics", "--cpu-limit", "--max-realtime-factor", "--preview-length", "--preview-start", "--profile", "--bind", "--worker-timeout", "--status-interval");
+    private static final Set<String> EXPORT_FLAGS = Set.of("--dither", "--parallel-encoding", "--timing-jitter", "--global-normalization", "--deterministic", "--background", "--preview");
+    private static final Set<String> WORKER_OPTIONS = Set.of("--connect", "--threads", "--cpu-limit", "--max-realtime-factor");
+    private static final Set<String> WORKER_FLAGS = Set.of("--background");
+    private static final Set<String> COMMANDS = Set.of("export", "worker", "help", "--help");
+
+    public static boolean isCommand(final String arg) {
+        return COMMANDS.contains(arg);
+    }
+
+    public static int run(final String[] args) {
+        try {
+            final String command = args[0];
+            final String[] commandArgs = Arrays.copyOfRange(args, 1, args.length);
+            return switch (command) {
+                case "export" -> export(new Arguments(commandArgs, EXPORT_OPTIONS, EXPORT_FLAGS));
+                case "worker" -> worker(new Arguments(commandArgs, WORKER_OPTIONS, WORKER_FLAGS));
+                case "help", "--help" -> {
+                    printUsage();
+                    yield 0;
+                }
+                default -> throw new UsageException("Unknown command: " + command);
+            };
+        } catch (UsageException e) {
+            System.err.println(e.getMessage());
+            printUsage();
+            return 2;
+        } catch (Throwable t) {
+            t.printStackTrace();
+            return 1;
+        }
+    }
+
+    private static int export(final Arguments arguments) throws Exception {
+        final List<String> positionals = arguments.getPositionals();
+        if (positionals.size() < 2) {
+            throw new UsageException("Missing output or song files");
+        }
+        final ExportOptions options = createOptions(arguments);
+        if (options.audioOutputs().stream().anyMatch(output -> output.format() == AudioOutput.Format.MP3) && !LameLibrary.isLoaded()) {
+            throw new IllegalStateException("LAME MP3 encoder is not available");
+        }
+        final ArchiveWriter.Type archiveType = arguments.has("--archive") ? arguments.getEnum("--archive", ArchiveWriter.Type.ZIP) : null;
+        if (archiveType != null && options.isSongFile()) {
+            throw new UsageException("Archives are only supported for audio exports");
+        }
+
+        final File output = new File(positionals.get(0));
+        if (archiveType == null && !output.isDirectory() && !output.mkdirs()) {
+            throw new IOException("Failed to create output folder: " + output.getAbsolutePath());
+        }
+        final List<File> songFiles = collectFiles(positionals.subList(1, positionals.size()));
+        final ExportThrottle throttle = createThrottle(arguments);
+        final int threadCount = arguments.getInt("--threads", throttle.getCores(), 1, 1024);
+
+        final AtomicInteger finishedSongs = new AtomicInteger();
+        final Consumer<JobResult> resultPrinter = result -> {
+            final String prefix = "[" + finishedSongs.incrementAndGet() + "/" + songFiles.size() + "] " + result.fileName();
+            if (result.isSuccessful()) {
+                System.out.printf(Locale.ROOT, "%s: %.1fx realtime, %d notes, %d peak voices (%s)%n", prefix, result.getRealtimeFactor(), result.renderedNotes(), result.peakVoices(), result.worker());
+            } else {
+                System.err.println(prefix + ": " + result.error() + " (" + result.worker() + ", " + result.attempts() + " attempts)");
+            }
+        };
+
+        final long start = System.nanoTime();
+        final List<JobResult> results;
+        try (ArchiveWriter archive = archiveType != null ? new ArchiveWriter(output, archiveType, threadCount * 2) : null) {
+            if (arguments.has("--coordinator")) {
+                final int port = arguments.getInt("--coordinator", WorkerProtocol.DEFAULT_PORT, 0, 65535);
+                final InetAddress bindAddress;
+                try {
+                    bindAddress = InetAddress.getByName(arguments.getString("--bind", InetAddress.getLoopbackAddress().getHostAddress()));
+                } catch (UnknownHostException e) {
+                    throw new UsageException("Invalid bind address: " + arguments.getString("--bind", null));
+                }
+                try (ExportCoordinator coordinator = new ExportCoordinator(bindAddress, port, options, arguments.getInt("--retries", 2, 0, 100), arguments.getInt("--worker-timeout", 60, 1, Integer.MAX_VALUE))) {
+                    final int localWorkers = arguments.getInt("--local-workers", 0, 0, 1024);
+                    if (localWorkers > 0) {
+                        coordinator.startLocalWorkers(localWorkers, arguments.getInt("--worker-threads", Math.max(1, threadCount / localWorkers), 1, 1024), throttle);
+                    }
+                    System.out.println("Waiting for export workers on " + coordinator.getAddress());
+                    results = coordinator.run(songFiles, output, archive, resultPrinter);
+                }
+            } else {
+                results = exportLocally(songFiles, output, archive, options, throttle, threadCount, (long) arguments.getInt("--memory-budget", (int) (Runtime.getRuntime().maxMemory() / MEBIBYTE * 3 / 4), 64, Integer.MAX_VALUE) * MEBIBYTE, arguments.getInt("--status-interval", 5, 0, 3600), resultPrinter);
+            }
+        }
+
+        final long failed = results.stream().filter(result -> !result.isSuccessful()).count();
+        System.out.printf(Locale.ROOT, "Exported %d of %d songs in %.1f seconds%n", results.size() - failed, songFiles.size(), (System.nanoTime() - start) / 1_000_000_000F);
+        if (arguments.has("--metrics")) {
+            writeMetrics(new File(arguments.getString("--metrics", null)), results);
+        }
+        return failed == 0 ? 0 : 1;
+    }
+
+    private static List<JobResult> exportLocally(final List<File> songFiles, final File output, final ArchiveWriter archive, final ExportOptions options, final ExportThrottle throttle, final int threadCount, final long memoryBudget, final int statusInterval, final Consumer<JobResult> resultListener) throws InterruptedException {
+        final SongExporter exporter = new SongExporter(options, throttle);
+        final SoundRegistry soundRegistry = SoundMap.getRegistry();
+        final List<JobResult> results = Collections.synchronizedList(new ArrayList<>());
+        final Consumer<JobResult> resultCollector = result -> {
+            results.add(result);
+            resultListener.accept(result);
+        };
+
+        final Map<File, Song> songs = new LinkedHashMap<>();
+        for (File songFile : songFiles) {
+            try {
+                songs.put(songFile, NoteBlockLib.readSong(songFile));
+            } catch (Throwable t) {
+                resultCollector.accept(new JobResult(songFile.getPath(), "local", 1, "Failed to load song: " + t.getMessage(), 0, 0F, 0, 0, 0, 0));
+            }
+        }
+
+        // The same throughput as in the export window is printed at a fixed interval while songs are exported
+        final List<ExportProgress> progresses = new ArrayList<>();
+        final long start = System.nanoTime();
+        final Thread statusThread = new Thread(() -> {
+            try {
+                while (true) {
+                    Thread.sleep(statusInterval * 1000L);
+                    final ExportThroughput throughput;
+                    synchronized (progresses) {
+                        throughput = new ExportThroughput(progresses, System.nanoTime() - start);
+                    }
+                    System.out.println("[" + results.size() + "/" + songFiles.size() + "] " + throughput.getRealtimeFactorText() + " | " + throughput.getNotesText() + " | " + throughput.getVoicesText() + " | " + throughput.getEncoderText());
+                }
+            } catch (InterruptedException ignored) {
+            }
+        }, "Export Status");
+        statusThread.setDaemon(true);
+        if (statusInterval > 0) {
+            statusThread.start();
+        }
+
+        try (ExportScheduler scheduler = new ExportScheduler(Math.min(Math.max(1, songs.size()), threadCount), memoryBudget, throttle)) {
+            scheduler.run(new ArrayList<>(songs.keySet()), songFile -> ExportScheduler.estimateCost(songs.get(songFile)), songFile -> exporter.estimateMemory(songs.get(songFile), archive != null), songFile -> {
+                final Song song = songs.get(songFile);
+                final ExportProgress progress = new ExportProgress(exporter.getRenderedLength(song));
+                synchronized (progresses) {
+                    progresses.add(progress);
+                }
+                try {
+                    final String fileName = songFile.getName().substring(0, songFile.getName().lastIndexOf('.')) + "." + options.getExtension();
+                    exporter.export(song, archive != null ? new File(fileName) : new File(output, fileName), soundRegistry, scheduler.getCpuBudget(), archive, progress);
+                    progress.finish();
+                    resultCollector.accept(new JobResult(songFile.getPath(), "local", 1, null, progress.getElapsedNanos(), progress.getLengthInSeconds(), progress.getRenderedNotes(), progress.getPeakVoices(), progress.getEncodedBytes(), progress.getEncodeNanos()));
+                } catch (InterruptedException ignored) {
+                } catch (Throwable t) {
+                    if (t.getCause() instanceof InterruptedException) {
+                        return;
+                    }
+                    t.printStackTrace();
+                    resultCollector.accept(new JobResult(songFile.getPath(), "local", 1, ExceptionUtil.getDescription(t), 0, 0F, 0, 0, 0, 0));
+                }
+            });
+        } finally {
+            statusThread.interrupt();
+        }
+        return results;
+    }
+
+    private static int worker(final Arguments arguments) throws InterruptedException {
+        final String connect = arguments.getString("--connect", null);
+        if (connect == null) {
+            throw new UsageException("Missing --connect <host:port>");
+        }
+        final int separator = connect.lastIndexOf(':');
+        final InetSocketAddress coordinator;
+        try {
+            coordinator = separator < 0 ? new InetSocketAddress(connect, WorkerProtocol.DEFAULT_PORT) : new InetSocketAddress(connect.substring(0, separator), Integer.parseInt(connect.substring(separator + 1)));
+        } catch (IllegalArgumentException e) { // Also thrown for invalid port numbers
+            throw new UsageException("Invalid coordinator address: " + connect);
+        }
+        new ExportWorker(coordinator, arguments.getInt("--threads", Runtime.getRuntime().availableProcessors(), 1, 1024), createThrottle(arguments)).run();
+        return 0;
+    }
+
+    private static ExportOptions createOptions(final Arguments arguments) {
+        final String format = arguments.getString("--format", "wav").toLowerCase(Locale.ROOT);
+        SongFormat songFormat = null;
+        final List<AudioOutput> audioOutputs = new ArrayList<>();
+        switch (format) {
+            case "nbs" -> songFormat = SongFormat.NBS;
+            case "mcsp2" -> songFormat = SongFormat.MCSP2;
+            case "txt" -> songFormat = SongFormat.TXT;
+            default -> {
+                final FloatAudioFormat audioFormat = new FloatAudioFormat(arguments.getInt("--sample-rate", 48000, 8000, 192000), arguments.getInt("--channels", 2, 1, 2));
+                final int bitDepth = arguments.getInt("--bit-depth", 16, 8, 32);
+                if (bitDepth % 8 != 0) {
+                    throw new UsageException("Invalid bit depth: " + bitDepth);
+                }
+                try {
+                    final AudioOutput mainOutput = new AudioOutput(AudioOutput.Format.fromExtension(format), audioFormat, bitDepth, arguments.has("--dither"), arguments.getInt("--mp3-quality", 60, 0, 100), arguments.has("--parallel-encoding"));
+                    audioOutputs.add(mainOutput);
+                    audioOutputs.addAll(AudioOutput.parseList(arguments.getString("--outputs", ""), mainOutput));
+                } catch (IllegalArgumentException e) {
+                    throw new UsageException(e.getMessage());
+                }
+            }
+        }
+        PreviewSettings preview = null;
+        if (arguments.has("--preview")) {
+            if (songFormat != null) {
+                throw new UsageException("Preview clips are only supported for audio exports");
+            }
+            preview = new PreviewSettings(arguments.getInt("--preview-length", 15, 1, 3600), arguments.has("--preview-start") ? arguments.getInt("--preview-start", 0, 0, Integer.MAX_VALUE) : PreviewSettings.AUTO_START);
+        }
+        return new ExportOptions(songFormat, audioOutputs, arguments.getInt("--volume", 50, 0, 100), arguments.has("--timing-jitter"), arguments.getInt("--max-sounds", 16384, 64, 131070), arguments.getInt("--admission-threshold", 0, 0, 120), arguments.has("--global-normalization"), arguments.getEnum("--mixing-mode", MixingMode.SINGLE_THREADED), arguments.has("--deterministic"), preview, arguments.getEnum("--profile", RenderProfile.NORMAL));
+    }
+
+    private static ExportThrottle createThrottle(final Arguments arguments) {
+        return new ExportThrottle(arguments.getInt("--cpu-limit", 100, 1, 100) / 100F, arguments.has("--background"), arguments.getInt("--max-realtime-factor", 0, 0, 100000));
+    }
+
+    private static List<File> collectFiles(final List<String> paths) {
+        final List<File> files = new ArrayList<>();
+        final Queue<File> queue = new ArrayDeque<>();
+        for (String path : paths) {
+            queue.add(new File(path));
+        }
+        while (!queue.isEmpty()) {
+            final File file = queue.poll();
+            if (file.isDirectory()) {
+                final File[] subFiles = file.listFiles();
+                if (subFiles != null) {
+                    Arrays.sort(subFiles);
+                    queue.addAll(Arrays.asList(subFiles));
+                }
+            } else if (file.isFile()) {
+                files.add(file);
+            } else {
+                throw new UsageException("File not found: " + file.getPath());
+            }
+        }
+        return files;
+    }
+
+    private static void writeMetrics(final File file, final List<JobResult> results) throws IOException {
+        try (PrintWriter writer = new PrintWriter(file)) {
+            writer.println("file,worker,attempts,status,elapsed_ms,length_s,realtime_factor,notes,peak_voices,encoded_bytes,encode_ms,error");
+            for (JobResult result : results) {
+                writer.printf(Locale.ROOT, "\"%s\",%s,%d,%s,%d,%.3f,%.3f,%d,%d,%d,%d,\"%s\"%n",
+                        result.fileName().replace("\"", "\"\""), result.worker(), result.attempts(), result.isSuccessful() ? "ok" : "failed",
+                        result.elapsedNanos() / 1_000_000, result.lengthInSeconds(), result.getRealtimeFactor(), result.renderedNotes(), result.peakVoices(),
+                        result.encodedBytes(), result.encodeNanos() / 1_000_000, result.isSuccessful() ? "" : result.error().replace("\"", "\"\""));
+            }
+        }
+    }
+
+    private static void printUsage() {
+        System.out.println("Usage:");
+        System.out.println("  NoteBlockTool export [options] <output folder or archive> <songs or folders...>");
+        System.out.println("  NoteBlockTool worker --connect <host:port> [--threads <n>] [throttle options]");
+        System.out.println();
+        System.out.println("Export options:");
+        System.out.println("  --format <nbs|mcsp2|txt|wav|mp3>   Output format (default: wav)");
+        System.out.println("  --sample-rate <hz>                 Sample rate (default: 48000)");
+        System.out.println("  --channels <1|2>                   Channel count (default: 2)");
+        System.out.println("  --bit-depth <8|16|24|32>           WAV bit depth (default: 16)");
+        System.out.println("  --dither                           Dither WAV output");
+        System.out.println("  --mp3-quality <0-100>              MP3 quality (default: 60)");
+        System.out.println("  --parallel-encoding                Encode MP3 segments in parallel");
+        System.out.println("  --outputs <format[:rate[:depth]]>  Comma separated additional outputs");
+        System.out.println("  --volume <0-100>                   Volume (default: 50)");
+        System.out.println("  --timing-jitter                    Artificial timing jitter");
+        System.out.println("  --max-sounds <n>                   Max sounds (default: 16384)");
+        System.out.println("  --admission-threshold <db>         Drop notes quieter than this (default: 0)");
+        System.out.println("  --global-normalization             Normalize the whole song instead of limiting");
+        System.out.println("  --mixing-mode <mode>               single-threaded, multithreaded or adaptive");
+        System.out.println("  --deterministic                    Byte-identical repeated exports, mixes each song on one thread");
+        System.out.println("  --profile <normal|draft>           Draft renders small mono files much faster");
+        System.out.println("  --threads <n>                      Songs exported in parallel (default: cores)");
+        System.out.println("  --status-interval <s>              Print the throughput at this interval, 0 to disable (default: 5)");
+        System.out.println("  --memory-budget <MiB>              Memory budget for parallel exports");
+        System.out.println("  --archive <zip|tar>                Write all files into one archive");
+        System.out.println("  --preview                          Only export a clip of every song");
+        System.out.println("  --preview-length <s>               Length of the clip (default: 15)");
+        System.out.println("  --preview-start <s>                Start of the clip (default: the part with the most notes)");
+        System.out.println();
+        System.out.println("Throttle options:");
+        System.out.println("  --cpu-limit <1-100>                Percentage of the cores which may be used (default: 100)");
+        System.out.println("  --background                       Run the export threads with the lowest priority");
+        System.out.println("  --max-realtime-factor <n>          Don't render songs faster than this (default: 0, unlimited)");
+        System.out.println();
+        System.out.println("Distributed export options:");
+        System.out.println("  --coordinator <port>               Hand the songs to worker processes connecting on this port");
+        System.out.println("  --bind <address>                   Interface accepting workers (default: 127.0.0.1, the protocol is unauthenticated)");
+        System.out.println("  --local-workers <n>                Start worker processes on this machine");
+        System.out.println("  --worker-threads <n>               Songs exported in parallel per local worker");
+        System.out.println("  --retries <n>                      Retries for failed songs (default: 2)");
+        System.out.println("  --worker-timeout <s>               Max wait for a worker, and base wait for a job result (default: 60)");
+        System.out.println("  --metrics <file>                   Write per-song metrics as CSV");
+    }
+
+}
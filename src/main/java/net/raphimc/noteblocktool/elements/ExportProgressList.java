@@ -0,0 +1,170 @@
+/*
+ * This file is part of NoteBlockTool - https://github.com/RaphiMC/NoteBlockTool
+ * Copyright (C) 2022-2026 RK_01/RaphiMC and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.raphimc.noteblocktool.elements;
+
+import net.lenni0451.commons.swing.GBC;
+import net.raphimc.noteblocktool.export.ExportProgress;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+public class ExportProgressList extends JList<ExportProgressList.Entry> {
+
+    private final Model model;
+
+    public ExportProgressList() {
+        this(new Model());
+    }
+
+    private ExportProgressList(final Model model) {
+        super(model);
+        this.model = model;
+
+        this.setCellRenderer(new Renderer());
+        // The prototype fixes the cell size, so the layout never asks the renderer for every entry. The cells still fill the width of the list
+        this.setPrototypeCellValue(new Entry("Prototype", new ExportProgress(0F)));
+        this.setFocusable(false);
+        this.setOpaque(false);
+    }
+
+    public void setEntries(final List<Entry> entries) {
+        this.model.setEntries(entries);
+    }
+
+    public void clear() {
+        this.model.setEntries(new ArrayList<>());
+    }
+
+    public void update() {
+        this.model.update();
+        // Only the visible entries are repainted with their new progress
+        final int firstIndex = this.getFirstVisibleIndex();
+        final int lastIndex = this.getLastVisibleIndex();
+        if (firstIndex != -1 && lastIndex != -1) {
+            this.model.contentsChanged(firstIndex, lastIndex);
+        }
+    }
+
+    public record Entry(String title, ExportProgress progress) {
+    }
+
+    private static class Model extends AbstractListModel<Entry> {
+
+        private List<Entry> entries = new ArrayList<>();
+
+        @Override
+        public int getSize() {
+            return this.entries.size();
+        }
+
+        @Override
+        public Entry getElementAt(final int index) {
+            return this.entries.get(index);
+        }
+
+        private void setEntries(final List<Entry> entries) {
+            final int oldSize = this.entries.size();
+            this.entries = entries;
+            if (oldSize > 0) {
+                this.fireIntervalRemoved(this, 0, oldSize - 1);
+            }
+            if (!entries.isEmpty()) {
+                this.fireIntervalAdded(this, 0, entries.size() - 1);
+            }
+        }
+
+        private void update() {
+            final int oldSize = this.entries.size();
+            final List<Entry> entries = new ArrayList<>(oldSize);
+            for (Entry entry : this.entries) {
+                if (!entry.progress().isFinished()) {
+                    entries.add(entry);
+                }
+            }
+            this.entries = entries;
+            if (entries.size() < oldSize) {
+                this.fireIntervalRemoved(this, entries.size(), oldSize - 1);
+            }
+        }
+
+        private void contentsChanged(final int firstIndex, final int lastIndex) {
+            if (firstIndex < this.entries.size()) {
+                this.fireContentsChanged(this, firstIndex, Math.min(lastIndex, this.entries.size() - 1));
+            }
+        }
+
+    }
+
+    private static class Renderer extends JPanel implements ListCellRenderer<Entry> {
+
+        private final JLabel title = new JLabel();
+        private final JProgressBar progressBar = new JProgressBar();
+        private final JLabel error = new JLabel();
+
+        private Renderer() {
+            this.setLayout(new GridBagLayout());
+            this.setOpaque(false);
+            this.setBorder(BorderFactory.createEmptyBorder(0, 0, 5, 0));
+
+            this.progressBar.setStringPainted(true);
+            this.error.setForeground(new Color(255, 107, 104));
+            GBC.create(this).grid(0, 0).insets(0).anchor(GBC.LINE_START).add(this.title);
+            GBC.create(this).grid(1, 0).insets(0, 5, 0, 0).weightx(1).fill(GBC.HORIZONTAL).add(this.progressBar);
+            GBC.create(this).grid(1, 0).insets(0, 5, 0, 0).weightx(1).fill(GBC.HORIZONTAL).add(this.error);
+        }
+
+        @Override
+        public Component getListCellRendererComponent(final JList<? extends Entry> list, final Entry entry, final int index, final boolean isSelected, final boolean cellHasFocus) {
+            final ExportProgress progress = entry.progress();
+            this.title.setText(entry.title());
+
+            final String error = progress.getError();
+            this.progressBar.setVisible(error == null);
+            this.error.setVisible(error != null);
+            if (error != null) {
+                this.error.setText(error);
+                return this;
+            }
+
+            final float value = progress.getProgress();
+            if (!progress.isStarted()) {
+                this.progressBar.setValue(0);
+                this.progressBar.setString("0%");
+            } else if (value == ExportProgress.ENCODING) {
+                this.progressBar.setString("Encoding MP3...");
+            } else if (value == ExportProgress.WRITING) {
+                this.progressBar.setString("Writing file...");
+            } else {
+                this.progressBar.setValue((int) value);
+                final long etaMillis = progress.getEtaMillis();
+                if (etaMillis >= 0) {
+                    final long etaSeconds = etaMillis / 1000;
+                    this.progressBar.setString(String.format(Locale.ROOT, "%d%% (%.1fx, ETA %02d:%02d:%02d)", (int) value, progress.getRealtimeFactor(), etaSeconds / 3600, (etaSeconds / 60) % 60, etaSeconds % 60));
+                } else {
+                    this.progressBar.setString((int) value + "%");
+                }
+            }
+            return this;
+        }
+
+    }
+
+}
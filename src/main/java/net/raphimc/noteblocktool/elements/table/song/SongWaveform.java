@@ -0,0 +1,146 @@
+/*
+ * This file is part of NoteBlockTool - https://github.com/RaphiMC/NoteBlockTool
+ * Copyright (C) 2022-2026 RK_01/RaphiMC and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.raphimc.noteblocktool.elements.table.song;
+
+import net.raphimc.noteblocklib.model.note.Note;
+import net.raphimc.noteblocklib.model.song.Song;
+import net.raphimc.noteblocktool.util.TempoMap;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiConsumer;
+
+public class SongWaveform {
+
+    public static final int BIN_COUNT = 96;
+    public static final float SILENCE_LEVEL = 0.01F;
+    public static final float CLIPPING_LEVEL = 6F;
+    private static final float DECAY_SECONDS = 0.5F;
+
+    private static final Map<String, float[]> CACHE = new ConcurrentHashMap<>();
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors() / 4), runnable -> {
+        final Thread thread = new Thread(runnable, "Waveform Thumbnail");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
+    public static SongWaveform load(final File file, final Song song, final BiConsumer<SongWaveform, SongWaveform> loadedCallback) {
+        // Files with the same content share their waveform, so reloading a folder doesn't analyze the songs again.
+        // A waveform never changes, the callback receives the returned placeholder and the new waveform which replaces it
+        final SongWaveform placeholder = new SongWaveform(null);
+        EXECUTOR.execute(() -> {
+            float[] levels;
+            try {
+                levels = CACHE.computeIfAbsent(hash(file), hash -> analyze(song));
+            } catch (Throwable t) {
+                levels = analyze(song);
+            }
+            loadedCallback.accept(placeholder, new SongWaveform(levels));
+        });
+        return placeholder;
+    }
+
+    public static SongWaveform analyze(final Song song, final BiConsumer<SongWaveform, SongWaveform> loadedCallback) {
+        // Edited songs don't match their file anymore, so they are not cached
+        final SongWaveform placeholder = new SongWaveform(null);
+        EXECUTOR.execute(() -> loadedCallback.accept(placeholder, new SongWaveform(analyze(song))));
+        return placeholder;
+    }
+
+    private static float[] analyze(final Song song) {
+        // Instead of rendering the song, every note adds its volume to an envelope which decays like a typical note block sound
+        final TempoMap tempoMap = new TempoMap(song);
+        final float lengthInSeconds = Math.max(tempoMap.getLengthInSeconds(), 0.001F);
+        final float[] levels = new float[BIN_COUNT];
+        float level = 0F;
+        float lastSeconds = 0F;
+        for (int tick = 0; tick <= tempoMap.getLengthInTicks(); tick++) {
+            final float seconds = tempoMap.getSeconds(tick);
+            level *= (float) Math.exp(-(seconds - lastSeconds) / DECAY_SECONDS);
+            lastSeconds = seconds;
+            for (Note note : song.getNotes().getOrEmpty(tick)) {
+                level += note.getVolume();
+            }
+            final int bin = Math.min(BIN_COUNT - 1, (int) (seconds / lengthInSeconds * BIN_COUNT));
+            levels[bin] = Math.max(levels[bin], level);
+        }
+        return levels;
+    }
+
+    private static String hash(final File file) throws Exception {
+        final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file.toPath()), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private final float[] levels;
+    private final float averageLevel;
+
+    private SongWaveform(final float[] levels) {
+        this.levels = levels;
+        if (levels != null) {
+            float sum = 0F;
+            for (float level : levels) {
+                sum += level;
+            }
+            this.averageLevel = sum / levels.length;
+        } else {
+            this.averageLevel = -1F;
+        }
+    }
+
+    public float[] getLevels() {
+        return this.levels;
+    }
+
+    public float getAverageLevel() {
+        return this.averageLevel;
+    }
+
+    public String getTooltip() {
+        final float[] levels = this.levels;
+        if (levels == null) {
+            return "Analyzing...";
+        }
+        int silentBins = 0;
+        int clippingBins = 0;
+        float peakLevel = 0F;
+        for (float level : levels) {
+            if (level < SILENCE_LEVEL) {
+                silentBins++;
+            } else if (level >= CLIPPING_LEVEL) {
+                clippingBins++;
+            }
+            peakLevel = Math.max(peakLevel, level);
+        }
+        return String.format("Peak: %.1f notes at full volume\nSilent: %d%%\nLikely limited: %d%%", peakLevel, silentBins * 100 / levels.length, clippingBins * 100 / levels.length);
+    }
+
+}
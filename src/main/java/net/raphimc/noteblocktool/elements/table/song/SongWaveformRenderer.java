@@ -0,0 +1,62 @@
+/*
+ * This file is part of NoteBlockTool - https://github.com/RaphiMC/NoteBlockTool
+ * Copyright (C) 2022-2026 RK_01/RaphiMC and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.raphimc.noteblocktool.elements.table.song;
+
+import javax.swing.*;
+import javax.swing.table.TableCellRenderer;
+import java.awt.*;
+
+public class SongWaveformRenderer extends JComponent implements TableCellRenderer {
+
+    private static final Color WAVEFORM_COLOR = new Color(88, 157, 246);
+    private static final Color CLIPPING_COLOR = new Color(255, 107, 104);
+
+    private float[] levels;
+
+    @Override
+    public Component getTableCellRendererComponent(final JTable table, final Object value, final boolean isSelected, final boolean hasFocus, final int row, final int column) {
+        this.levels = ((SongWaveform) value).getLevels();
+        this.setBackground(isSelected ? table.getSelectionBackground() : table.getBackground());
+        return this;
+    }
+
+    @Override
+    protected void paintComponent(final Graphics g) {
+        g.setColor(this.getBackground());
+        g.fillRect(0, 0, this.getWidth(), this.getHeight());
+        final float[] levels = this.levels;
+        if (levels == null) {
+            return;
+        }
+
+        // Levels are drawn mirrored around the center, everything above the clipping level fills the whole row in red
+        final int center = this.getHeight() / 2;
+        final float binWidth = (float) this.getWidth() / levels.length;
+        for (int i = 0; i < levels.length; i++) {
+            if (levels[i] < SongWaveform.SILENCE_LEVEL) {
+                continue;
+            }
+            final int x = (int) (i * binWidth);
+            final int width = Math.max(1, (int) ((i + 1) * binWidth) - x);
+            final int height = Math.max(1, (int) (Math.min(1F, levels[i] / SongWaveform.CLIPPING_LEVEL) * (center - 1)));
+            g.setColor(levels[i] >= SongWaveform.CLIPPING_LEVEL ? CLIPPING_COLOR : WAVEFORM_COLOR);
+            g.fillRect(x, center - height, width, height * 2);
+        }
+    }
+
+}
@@ -21,25 +21,32 @@ import net.raphimc.noteblocklib.util.SongUtil;
 import net.raphimc.noteblocktool.frames.ListFrame;
 
 import javax.swing.*;
+import javax.swing.event.TableModelEvent;
 import javax.swing.table.DefaultTableModel;
 import javax.swing.table.TableModel;
 import javax.swing.table.TableRowSorter;
 import java.awt.event.MouseEvent;
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Predicate;
 
 public class SongsTable extends JTable {
 
+    private final Map<SongWaveform, Vector<Object>> waveformRows = new IdentityHashMap<>();
+    private final Queue<LoadedWaveform> loadedWaveforms = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean waveformUpdateScheduled = new AtomicBoolean();
+
     public SongsTable() {
-        super(new SongsTableModel("Path", "Title", "Author", "Length", "Notes", "Tempo", "Minecraft compatible"));
+        super(new SongsTableModel("Path", "Title", "Author", "Length", "Notes", "Tempo", "Minecraft compatible", "Waveform"));
 
         this.getTableHeader().setReorderingAllowed(false);
         this.getColumnModel().getColumn(1).setPreferredWidth(250);
         this.getColumnModel().getColumn(3).setPreferredWidth(25);
         this.getColumnModel().getColumn(4).setPreferredWidth(25);
         this.getColumnModel().getColumn(5).setPreferredWidth(25);
+        this.getColumnModel().getColumn(7).setPreferredWidth(120);
+        this.getColumnModel().getColumn(7).setCellRenderer(new SongWaveformRenderer());
 
         final TableRowSorter<TableModel> sorter = new TableRowSorter<>(this.getModel());
         final List<RowSorter.SortKey> sortKeys = new ArrayList<>();
@@ -48,6 +55,7 @@ public class SongsTable extends JTable {
         }
         sorter.setSortKeys(sortKeys);
         sorter.setComparator(4, Comparator.comparingInt(o -> (int) o));
+        sorter.setComparator(7, Comparator.comparingDouble(o -> ((SongWaveform) o).getAverageLevel()));
         this.setRowSorter(sorter);
     }
 
@@ -60,8 +68,10 @@ public class SongsTable extends JTable {
                 song.song().getHumanReadableLength(),
                 song.song().getNotes().getNoteCount(),
                 song.song().getTempoEvents().getHumanReadableTempoRange(),
-                this.isSchematicCompatible(song)
+                this.isSchematicCompatible(song),
+                SongWaveform.load(song.file(), song.song(), this::setWaveform)
         });
+        this.trackWaveform(model.getDataVector().lastElement());
     }
 
     public void refreshRow(final ListFrame.LoadedSong song) {
@@ -74,15 +84,50 @@ public class SongsTable extends JTable {
                 model.setValueAt(song.song().getNotes().getNoteCount(), i, 4);
                 model.setValueAt(song.song().getTempoEvents().getHumanReadableTempoRange(), i, 5);
                 model.setValueAt(this.isSchematicCompatible(song), i, 6);
+                this.waveformRows.remove((SongWaveform) model.getValueAt(i, 7));
+                model.setValueAt(SongWaveform.analyze(song.song(), this::setWaveform), i, 7);
+                this.trackWaveform(model.getDataVector().get(i));
                 break;
             }
         }
     }
 
+    private void trackWaveform(final Vector<Object> row) {
+        this.waveformRows.put((SongWaveform) row.get(7), row);
+    }
+
+    private void setWaveform(final SongWaveform placeholder, final SongWaveform waveform) {
+        // Finished waveforms are collected and replace their placeholders in one EDT pass, so the sorter only ever compares values which don't change during a sort.
+        // Placeholders which were already replaced by a newer analysis or whose row was removed are ignored
+        this.loadedWaveforms.add(new LoadedWaveform(placeholder, waveform));
+        if (this.waveformUpdateScheduled.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(this::updateWaveforms);
+        }
+    }
+
+    private void updateWaveforms() {
+        this.waveformUpdateScheduled.set(false);
+        boolean changed = false;
+        LoadedWaveform loadedWaveform;
+        while ((loadedWaveform = this.loadedWaveforms.poll()) != null) {
+            final Vector<Object> row = this.waveformRows.remove(loadedWaveform.placeholder());
+            if (row != null) {
+                row.set(7, loadedWaveform.waveform());
+                changed = true;
+            }
+        }
+        final DefaultTableModel model = (DefaultTableModel) this.getModel();
+        if (changed && model.getRowCount() > 0) {
+            // A single event for the waveform column, the sorter only sorts again if it sorts by waveform
+            model.fireTableChanged(new TableModelEvent(model, 0, model.getRowCount() - 1, 7));
+        }
+    }
+
     public void removeRowIf(final Predicate<ListFrame.LoadedSong> condition) {
         final DefaultTableModel model = (DefaultTableModel) this.getModel();
         for (int i = model.getRowCount() - 1; i >= 0; i--) {
             if (condition.test((ListFrame.LoadedSong) model.getValueAt(i, 0))) {
+                this.waveformRows.remove((SongWaveform) model.getValueAt(i, 7));
                 model.removeRow(i);
             }
         }
@@ -98,6 +143,8 @@ public class SongsTable extends JTable {
             return this.getValueAt(row, column).toString();
         } else if (column == 6) {
             return ((CompatibilityResult) this.getValueAt(row, column)).getTooltip();
+        } else if (column == 7) {
+            return ((SongWaveform) this.getValueAt(row, column)).getTooltip();
         } else {
             return null;
         }
@@ -118,6 +165,9 @@ public class SongsTable extends JTable {
         return result;
     }
 
+    private record LoadedWaveform(SongWaveform placeholder, SongWaveform waveform) {
+    }
+
     private static class CompatibilityResult {
 
         private final List<String> reasons = new ArrayList<>();
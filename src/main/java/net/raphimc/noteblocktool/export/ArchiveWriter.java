@@ -0,0 +1,217 @@
+/*
+ * This file is part of NoteBlockTool - https://github.com/RaphiMC/NoteBlockTool
+ * Copyright (C) 2022-2026 RK_01/RaphiMC and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.raphimc.noteblocktool.export;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+public class ArchiveWriter implements AutoCloseable {
+
+    private static final int TAR_BLOCK_SIZE = 512;
+    private static final long TAR_MAX_SIZE = 077777777777L;
+    private static final Entry END = new Entry(null, null, 0);
+
+    private final Type type;
+    private final OutputStream outputStream;
+    private final BlockingQueue<Entry> queue;
+    private final Thread writerThread;
+    private final Set<String> names = new HashSet<>();
+    private volatile Throwable failure;
+
+    public ArchiveWriter(final File file, final Type type, final int queueSize) throws IOException {
+        this.type = type;
+        final OutputStream fileOutputStream = new BufferedOutputStream(new FileOutputStream(file), 1024 * 1024);
+        this.outputStream = type == Type.ZIP ? new ZipOutputStream(fileOutputStream) : fileOutputStream;
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+        this.writerThread = new Thread(this::writeEntries, "Archive Writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    public void add(final String name, final ByteArrayOutputStream data) throws IOException, InterruptedException {
+        if (this.failure != null) {
+            throw new IOException("Failed to write archive", this.failure);
+        }
+        long crc = 0;
+        if (this.type == Type.ZIP) {
+            // The checksum of stored entries has to be known before the entry is written, so the workers calculate it in parallel
+            final CRC32 crc32 = new CRC32();
+            data.writeTo(new CheckedOutputStream(OutputStream.nullOutputStream(), crc32));
+            crc = crc32.getValue();
+        }
+        this.queue.put(new Entry(name, data, crc)); // Blocks the workers if the writer can't keep up
+    }
+
+    private void writeEntries() {
+        try {
+            while (true) {
+                final Entry entry = this.queue.take();
+                if (entry == END) {
+                    break;
+                }
+                if (this.failure == null) { // Entries are still taken after a failure, so the workers don't block forever
+                    try {
+                        this.writeEntry(this.getUniqueName(entry.name), entry);
+                    } catch (Throwable t) {
+                        this.failure = t;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            this.failure = e;
+        }
+    }
+
+    private void writeEntry(final String name, final Entry entry) throws IOException {
+        if (this.type == Type.ZIP) {
+            final ZipOutputStream zipOutputStream = (ZipOutputStream) this.outputStream;
+            final ZipEntry zipEntry = new ZipEntry(name);
+            zipEntry.setMethod(ZipEntry.STORED); // Audio doesn't compress well and deflating would make the single writer thread the bottleneck
+            zipEntry.setSize(entry.data.size());
+            zipEntry.setCompressedSize(entry.data.size());
+            zipEntry.setCrc(entry.crc);
+            zipOutputStream.putNextEntry(zipEntry);
+            entry.data.writeTo(zipOutputStream);
+            zipOutputStream.closeEntry();
+        } else {
+            final byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+            final long size = entry.data.size();
+            if (nameBytes.length > 100 || size > TAR_MAX_SIZE) {
+                // Long names and sizes are stored in a pax extended header which precedes the entry
+                final String records = paxRecord("path", name) + (size > TAR_MAX_SIZE ? paxRecord("size", Long.toString(size)) : "");
+                final byte[] recordBytes = records.getBytes(StandardCharsets.UTF_8);
+                this.writeTarHeader("PaxHeader", recordBytes.length, (byte) 'x');
+                this.outputStream.write(recordBytes);
+                this.writeTarPadding(recordBytes.length);
+            }
+            this.writeTarHeader(name, Math.min(size, TAR_MAX_SIZE), (byte) '0');
+            entry.data.writeTo(this.outputStream);
+            this.writeTarPadding(size);
+        }
+    }
+
+    private void writeTarHeader(final String name, final long size, final byte type) throws IOException {
+        final byte[] header = new byte[TAR_BLOCK_SIZE];
+        final byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        System.arraycopy(nameBytes, 0, header, 0, Math.min(nameBytes.length, 100));
+        writeOctal(header, 100, 8, 0644);
+        writeOctal(header, 108, 8, 0);
+        writeOctal(header, 116, 8, 0);
+        writeOctal(header, 124, 12, size);
+        writeOctal(header, 136, 12, System.currentTimeMillis() / 1000);
+        header[156] = type;
+        System.arraycopy("ustar\u000000".getBytes(StandardCharsets.US_ASCII), 0, header, 257, 8);
+        Arrays.fill(header, 148, 156, (byte) ' ');
+        int checksum = 0;
+        for (byte b : header) {
+            checksum += b & 0xFF;
+        }
+        writeOctal(header, 148, 7, checksum);
+        header[154] = 0;
+        this.outputStream.write(header);
+    }
+
+    private void writeTarPadding(final long size) throws IOException {
+        final int padding = (int) ((TAR_BLOCK_SIZE - size % TAR_BLOCK_SIZE) % TAR_BLOCK_SIZE);
+        this.outputStream.write(new byte[padding]);
+    }
+
+    private String getUniqueName(final String name) {
+        String uniqueName = name;
+        final int extensionIndex = name.lastIndexOf('.');
+        for (int i = 2; !this.names.add(uniqueName); i++) {
+            uniqueName = extensionIndex == -1 ? name + "_" + i : name.substring(0, extensionIndex) + "_" + i + name.substring(extensionIndex);
+        }
+        return uniqueName;
+    }
+
+    @Override
+    public void close() throws IOException, InterruptedException {
+        try {
+            this.queue.put(END);
+            this.writerThread.join();
+            if (this.type == Type.TAR && this.failure == null) {
+                this.outputStream.write(new byte[TAR_BLOCK_SIZE * 2]);
+            }
+        } catch (InterruptedException e) {
+            // The writer may still be writing an entry, it has to stop before the stream is closed
+            this.writerThread.interrupt();
+            while (this.writerThread.isAlive()) {
+                try {
+                    this.writerThread.join();
+                } catch (InterruptedException ignored) {
+                }
+            }
+            throw e;
+        } finally {
+            this.outputStream.close();
+        }
+        if (this.failure != null) {
+            throw new IOException("Failed to write archive", this.failure);
+        }
+    }
+
+    private static String paxRecord(final String key, final String value) {
+        // Each record starts with its own length in bytes, including the length itself
+        final int length = key.getBytes(StandardCharsets.UTF_8).length + value.getBytes(StandardCharsets.UTF_8).length + 3;
+        int recordLength = length + Integer.toString(length).length();
+        if (Integer.toString(recordLength).length() != Integer.toString(length).length()) {
+            recordLength++;
+        }
+        return recordLength + " " + key + "=" + value + "\n";
+    }
+
+    private static void writeOctal(final byte[] header, final int offset, final int length, final long value) {
+        final String octal = Long.toOctalString(value);
+        final byte[] bytes = ("0".repeat(Math.max(0, length - 1 - octal.length())) + octal).getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(bytes, 0, header, offset, Math.min(bytes.length, length - 1));
+    }
+
+    private record Entry(String name, ByteArrayOutputStream data, long crc) {
+    }
+
+    public enum Type {
+        ZIP("zip"),
+        TAR("tar");
+
+        private final String extension;
+
+        Type(final String extension) {
+            this.extension = extension;
+        }
+
+        public String getExtension() {
+            return this.extension;
+        }
+    }
+
+}
@@ -0,0 +1,135 @@
+/*
+ * This file is part of NoteBlockTool - https://github.com/RaphiMC/NoteBlockTool
+ * Copyright (C) 2022-2026 RK_01/RaphiMC and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.raphimc.noteblocktool.export;
+
+import net.raphimc.audiomixer.util.FloatAudioFormat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class AudioConverter {
+
+    private static final int ZERO_CROSSINGS = 16;
+    private static final int KERNEL_RESOLUTION = 256;
+    private static final int CHUNK_FRAMES = 16 * 1024;
+    private static final float[] KERNEL = new float[ZERO_CROSSINGS * KERNEL_RESOLUTION + 2];
+    private static final ExecutorService RESAMPLE_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        final Thread thread = new Thread(runnable, "Audio Resampler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        // Blackman windowed sinc, sampled finely enough to be linearly interpolated
+        for (int i = 0; i < KERNEL.length; i++) {
+            final double x = (double) i / KERNEL_RESOLUTION;
+            if (x >= ZERO_CROSSINGS) {
+                continue;
+            }
+            final double sinc = x == 0 ? 1 : Math.sin(Math.PI * x) / (Math.PI * x);
+            final double windowPosition = Math.PI * (x / ZERO_CROSSINGS + 1);
+            final double window = 0.42 - 0.5 * Math.cos(windowPosition) + 0.08 * Math.cos(2 * windowPosition);
+            KERNEL[i] = (float) (sinc * window);
+        }
+    }
+
+    public static float[] convert(final float[] samples, final FloatAudioFormat sourceFormat, final FloatAudioFormat targetFormat, final int threadCount) throws InterruptedException {
+        final float[] channelSamples = convertChannels(samples, sourceFormat.channels(), targetFormat.channels());
+        if (sourceFormat.sampleRate() == targetFormat.sampleRate()) {
+            return channelSamples;
+        }
+        return resample(channelSamples, targetFormat.channels(), sourceFormat.sampleRate(), targetFormat.sampleRate(), Math.max(1, threadCount));
+    }
+
+    private static float[] convertChannels(final float[] samples, final int sourceChannels, final int targetChannels) {
+        if (sourceChannels == targetChannels) {
+            return samples;
+        } else if (sourceChannels == 2 && targetChannels == 1) {
+            final float[] result = new float[samples.length / 2];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = (samples[i * 2] + samples[i * 2 + 1]) * 0.5F;
+            }
+            return result;
+        } else if (sourceChannels == 1 && targetChannels == 2) {
+            final float[] result = new float[samples.length * 2];
+            for (int i = 0; i < samples.length; i++) {
+                result[i * 2] = samples[i];
+                result[i * 2 + 1] = samples[i];
+            }
+            return result;
+        } else {
+            throw new UnsupportedOperationException("Unsupported channel conversion: " + sourceChannels + " -> " + targetChannels);
+        }
+    }
+
+    private static float[] resample(final float[] samples, final int channels, final float sourceSampleRate, final float targetSampleRate, final int threadCount) throws InterruptedException {
+        final int sourceFrames = samples.length / channels;
+        final double ratio = targetSampleRate / sourceSampleRate;
+        final int targetFrames = (int) Math.ceil(sourceFrames * ratio);
+        final double cutoff = Math.min(1D, ratio); // Downsampling filters everything above the new nyquist frequency
+        final double radius = ZERO_CROSSINGS / cutoff;
+        final float[] result = new float[targetFrames * channels];
+        final int chunkCount = (targetFrames + CHUNK_FRAMES - 1) / CHUNK_FRAMES;
+        final int taskCount = Math.min(threadCount, chunkCount);
+        // Every task converts every taskCount-th chunk, the calling thread takes the first one
+        final List<Future<?>> futures = new ArrayList<>(taskCount);
+        try {
+            for (int task = 1; task < taskCount; task++) {
+                final int firstChunk = task;
+                futures.add(RESAMPLE_EXECUTOR.submit(() -> resampleChunks(samples, result, channels, sourceFrames, targetFrames, ratio, cutoff, radius, firstChunk, taskCount)));
+            }
+            resampleChunks(samples, result, channels, sourceFrames, targetFrames, ratio, cutoff, radius, 0, Math.max(1, taskCount));
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Failed to resample audio", e.getCause());
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+        return result;
+    }
+
+    private static void resampleChunks(final float[] samples, final float[] result, final int channels, final int sourceFrames, final int targetFrames, final double ratio, final double cutoff, final double radius, final int firstChunk, final int chunkStep) {
+        for (int chunk = firstChunk; chunk * CHUNK_FRAMES < targetFrames; chunk += chunkStep) {
+            final int end = Math.min(targetFrames, (chunk + 1) * CHUNK_FRAMES);
+            for (int frame = chunk * CHUNK_FRAMES; frame < end; frame++) {
+                final double position = frame / ratio;
+                final int first = Math.max(0, (int) Math.ceil(position - radius));
+                final int last = Math.min(sourceFrames - 1, (int) Math.floor(position + radius));
+                for (int i = first; i <= last; i++) {
+                    final double kernelPosition = Math.abs(position - i) * cutoff * KERNEL_RESOLUTION;
+                    final int kernelIndex = (int) kernelPosition;
+                    final float fraction = (float) (kernelPosition - kernelIndex);
+                    final float weight = (float) cutoff * (KERNEL[kernelIndex] + (KERNEL[kernelIndex + 1] - KERNEL[kernelIndex]) * fraction);
+                    for (int channel = 0; channel < channels; channel++) {
+                        result[frame * channels + channel] += samples[i * channels + channel] * weight;
+                    }
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,176 @@
+/*
+ * This file is part of NoteBlockTool - https://github.com/RaphiMC/NoteBlockTool
+ * Copyright (C) 2022-2026 RK_01/RaphiMC and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.raphimc.noteblocktool.export;
+
+import net.raphimc.audiomixer.util.FloatAudioFormat;
+import net.raphimc.noteblocklib.model.song.Song;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public record AudioOutput(Format format, FloatAudioFormat audioFormat, int wavBitDepth, boolean wavDither, int mp3Quality, boolean mp3Segmented) {
+
+    private static final ExecutorService OUTPUT_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        final Thread thread = new Thread(runnable, "Audio Output Writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public static List<AudioOutput> parseList(final String specs, final AudioOutput defaults) {
+        final List<AudioOutput> outputs = new ArrayList<>();
+        for (String spec : specs.split(",")) {
+            if (!spec.isBlank()) {
+                outputs.add(parse(spec.trim(), defaults));
+            }
+        }
+        return outputs;
+    }
+
+    public static AudioOutput parse(final String spec, final AudioOutput defaults) {
+        // format[:sampleRate[:bitDepth or quality]], everything else is taken from the defaults
+        final String[] parts = spec.split(":");
+        if (parts.length > 3) {
+            throw new IllegalArgumentException("Invalid output: " + spec);
+        }
+        final Format format = Format.fromExtension(parts[0]);
+        FloatAudioFormat audioFormat = defaults.audioFormat;
+        int wavBitDepth = defaults.wavBitDepth;
+        int mp3Quality = defaults.mp3Quality;
+        try {
+            if (parts.length > 1) {
+                final int sampleRate = Integer.parseInt(parts[1]);
+                if (sampleRate < 8000 || sampleRate > 192000) {
+                    throw new IllegalArgumentException("Invalid sample rate: " + spec);
+                }
+                audioFormat = new FloatAudioFormat(sampleRate, audioFormat.channels());
+            }
+            if (parts.length > 2) {
+                final int value = Integer.parseInt(parts[2]);
+                if (format == Format.WAV) {
+                    if (value != 8 && value != 16 && value != 24 && value != 32) {
+                        throw new IllegalArgumentException("Invalid bit depth: " + spec);
+                    }
+                    wavBitDepth = value;
+                } else {
+                    if (value < 0 || value > 100) {
+                        throw new IllegalArgumentException("Invalid quality: " + spec);
+                    }
+                    mp3Quality = value;
+                }
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid output: " + spec, e);
+        }
+        return new AudioOutput(format, audioFormat, wavBitDepth, defaults.wavDither, mp3Quality, defaults.mp3Segmented);
+    }
+
+    public static FloatAudioFormat getMasterFormat(final List<AudioOutput> outputs) {
+        float sampleRate = 0;
+        int channels = 0;
+        for (AudioOutput output : outputs) {
+            sampleRate = Math.max(sampleRate, output.audioFormat.sampleRate());
+            channels = Math.max(channels, output.audioFormat.channels());
+        }
+        return new FloatAudioFormat(sampleRate, channels);
+    }
+
+    public static int getUsableThreadCount(final List<AudioOutput> outputs, final int masterFrameCount, final FloatAudioFormat masterFormat) {
+        int threadCount = 0;
+        for (AudioOutput output : outputs) {
+            final int frameCount = (int) ((long) masterFrameCount * (long) output.audioFormat.sampleRate() / (long) masterFormat.sampleRate());
+            threadCount += switch (output.format) {
+                case WAV -> WavWriter.getChunkCount(frameCount);
+                case MP3 -> output.mp3Segmented ? Mp3Encoder.getSegmentCount(frameCount, output.audioFormat) : 1;
+            };
+        }
+        return threadCount;
+    }
+
+    public static long writeAll(final List<AudioOutput> outputs, final List<? extends OutputStream> outputStreams, final Song song, final float[] masterSamples, final FloatAudioFormat masterFormat, final int threadCount) throws IOException, InterruptedException {
+        // The song is only rendered once and every output converts and encodes the shared master buffer on its own thread
+        final int outputThreadCount = Math.max(1, threadCount / outputs.size());
+        final List<Future<Long>> futures = new ArrayList<>();
+        try {
+            for (int i = 1; i < outputs.size(); i++) {
+                final AudioOutput output = outputs.get(i);
+                final OutputStream outputStream = outputStreams.get(i);
+                futures.add(OUTPUT_EXECUTOR.submit(() -> output.write(outputStream, song, masterSamples, masterFormat, outputThreadCount)));
+            }
+            long encodedBytes = outputs.get(0).write(outputStreams.get(0), song, masterSamples, masterFormat, outputThreadCount);
+            for (Future<Long> future : futures) {
+                encodedBytes += future.get();
+            }
+            return encodedBytes;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            } else if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IOException("Failed to write audio output", e.getCause());
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+    }
+
+    public long write(final OutputStream outputStream, final Song song, final float[] masterSamples, final FloatAudioFormat masterFormat, final int threadCount) throws IOException, InterruptedException {
+        final float[] samples = AudioConverter.convert(masterSamples, masterFormat, this.audioFormat, threadCount);
+        return switch (this.format) {
+            case WAV -> {
+                final WritableByteChannel channel = outputStream instanceof FileOutputStream fileOutputStream ? fileOutputStream.getChannel() : Channels.newChannel(outputStream);
+                yield WavWriter.write(channel, samples, this.audioFormat, this.wavBitDepth, this.wavDither, threadCount);
+            }
+            case MP3 -> new Mp3Encoder(song, (1F - (this.mp3Quality / 100F)) * 9F).write(outputStream, samples, this.audioFormat, this.mp3Segmented, threadCount);
+        };
+    }
+
+    public enum Format {
+        WAV("wav"),
+        MP3("mp3");
+
+        public static Format fromExtension(final String extension) {
+            for (Format format : values()) {
+                if (format.extension.equals(extension.toLowerCase(Locale.ROOT))) {
+                    return format;
+                }
+            }
+            throw new IllegalArgumentException("Unsupported output format: " + extension);
+        }
+
+        private final String extension;
+
+        Format(final String extension) {
+            this.extension = extension;
+        }
+
+        public String getExtension() {
+            return this.extension;
+        }
+    }
+
+}
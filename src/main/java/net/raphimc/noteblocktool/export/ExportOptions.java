@@ -0,0 +1,44 @@
+/*
+ * This file is part of NoteBlockTool - https://github.com/RaphiMC/NoteBlockTool
+ * Copyright (C) 2022-2026 RK_01/RaphiMC and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.raphimc.noteblocktool.export;
+
+import net.raphimc.noteblocklib.format.SongFormat;
+import net.raphimc.noteblocktool.audio.renderer.MixingMode;
+import net.raphimc.noteblocktool.audio.renderer.RenderProfile;
+
+import java.util.List;
+import java.util.Locale;
+
+public record ExportOptions(SongFormat songFormat, List<AudioOutput> audioOutputs, int volume, boolean timingJitter, int maxSounds, int admissionThreshold, boolean globalNormalization, MixingMode mixingMode, boolean deterministic, PreviewSettings preview, RenderProfile profile) {
+
+    public boolean isSongFile() {
+        return this.songFormat != null;
+    }
+
+    public boolean isAudioFile() {
+        return this.songFormat == null;
+    }
+
+    public String getExtension() {
+        if (this.songFormat != null) {
+            return this.songFormat.name().toLowerCase(Locale.ROOT);
+        }
+        return this.audioOutputs.get(0).format().getExtension();
+    }
+
+}
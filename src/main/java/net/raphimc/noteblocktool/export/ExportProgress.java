@@ -0,0 +1,152 @@
+/*
+ * This file is part of NoteBlockTool - https://github.com/RaphiMC/NoteBlockTool
+ * Copyright (C) 2022-2026 RK_01/RaphiMC and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.raphimc.noteblocktool.export;
+
+import it.unimi.dsi.fastutil.floats.FloatConsumer;
+
+public class ExportProgress implements FloatConsumer {
+
+    public static final float WRITING = 101F;
+    public static final float ENCODING = 200F;
+
+    private final float lengthInSeconds;
+    private volatile float progress;
+    private volatile float renderedSeconds;
+    private volatile long startNanos;
+    private volatile long endNanos;
+    private volatile long renderedNotes;
+    private volatile int peakVoices;
+    private volatile long voiceSum;
+    private volatile long voiceSamples;
+    private volatile long encodedBytes;
+    private volatile long encodeNanos;
+    private volatile String error;
+
+    public ExportProgress(final float lengthInSeconds) {
+        this.lengthInSeconds = lengthInSeconds;
+    }
+
+    @Override
+    public void accept(final float progress) {
+        // Called by the export worker for every tick, so this only stores the value. The UI polls it at a fixed rate
+        if (this.startNanos == 0) {
+            this.startNanos = System.nanoTime();
+        }
+        this.progress = progress;
+    }
+
+    public void update(final float progress, final long renderedNotes, final int activeVoices) {
+        this.accept(progress);
+        this.renderedNotes = renderedNotes;
+        this.peakVoices = Math.max(this.peakVoices, activeVoices);
+        this.voiceSum += activeVoices;
+        this.voiceSamples++;
+    }
+
+    public void setRenderedSeconds(final float renderedSeconds) {
+        this.renderedSeconds = renderedSeconds;
+    }
+
+    public void recordEncoding(final long encodedBytes, final long encodeNanos) {
+        this.encodedBytes = encodedBytes;
+        this.encodeNanos = encodeNanos;
+    }
+
+    public void finish() {
+        this.endNanos = System.nanoTime();
+    }
+
+    public void fail(final String error) {
+        this.error = error;
+    }
+
+    public boolean isStarted() {
+        return this.startNanos != 0;
+    }
+
+    public boolean isFinished() {
+        return this.endNanos != 0;
+    }
+
+    public String getError() {
+        return this.error;
+    }
+
+    public float getProgress() {
+        return this.progress;
+    }
+
+    public long getElapsedNanos() {
+        if (this.startNanos == 0) {
+            return 0;
+        }
+        return (this.endNanos != 0 ? this.endNanos : System.nanoTime()) - this.startNanos;
+    }
+
+    public float getRenderedSeconds() {
+        return this.renderedSeconds;
+    }
+
+    public float getRealtimeFactor() {
+        final long elapsedNanos = this.getElapsedNanos();
+        if (elapsedNanos == 0) {
+            return 0F;
+        }
+        return this.getRenderedSeconds() / (elapsedNanos / 1_000_000_000F);
+    }
+
+    public float getLengthInSeconds() {
+        return this.lengthInSeconds;
+    }
+
+    public long getRenderedNotes() {
+        return this.renderedNotes;
+    }
+
+    public int getPeakVoices() {
+        return this.peakVoices;
+    }
+
+    public long getVoiceSum() {
+        return this.voiceSum;
+    }
+
+    public long getVoiceSamples() {
+        return this.voiceSamples;
+    }
+
+    public long getEncodedBytes() {
+        return this.encodedBytes;
+    }
+
+    public long getEncodeNanos() {
+        return this.encodeNanos;
+    }
+
+    public long getEtaMillis() {
+        // Based on the rendered audio instead of the note progress, because the notes of a song are rarely spread evenly
+        final float renderedSeconds = this.renderedSeconds;
+        if (renderedSeconds <= 0F) {
+            return -1;
+        } else if (renderedSeconds >= this.lengthInSeconds) {
+            return 0;
+        }
+        return (long) (this.getElapsedNanos() / 1_000_000F * (this.lengthInSeconds - renderedSeconds) / renderedSeconds);
+    }
+
+}
@@ -0,0 +1,132 @@
+/*
+ * This file is part of NoteBlockTool - https://github.com/RaphiMC/NoteBlockTool
+ * Copyright (C) 2022-2026 RK_01/RaphiMC and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.raphimc.noteblocktool.export;
+
+import net.raphimc.audiomixer.util.FloatAudioFormat;
+import net.raphimc.noteblocklib.model.song.Song;
+import net.raphimc.noteblocktool.util.CpuBudget;
+import net.raphimc.noteblocktool.util.MemoryBudget;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+public class ExportScheduler implements AutoCloseable {
+
+    private static final double POLYPHONY_COST = 1D / 256D;
+    private static final double NOTE_COST = 0.02D;
+    private static final float RENDER_TAIL_SECONDS = 0.75F;
+    private static final int RENDER_BUFFER_COPIES = 3;
+
+    public static double estimateCost(final Song song) {
+        int peakPolyphony = 0;
+        for (int tick = 0; tick <= song.getNotes().getLengthInTicks(); tick++) {
+            peakPolyphony = Math.max(peakPolyphony, song.getNotes().getOrEmpty(tick).size());
+        }
+        // The mixer and limiter cost grows with the length, every note keeps a sound playing for a while
+        return song.getLengthInSeconds() * (1D + peakPolyphony * POLYPHONY_COST) + song.getNotes().getNoteCount() * NOTE_COST;
+    }
+
+    public static long estimateMemory(final float lengthInSeconds, final FloatAudioFormat audioFormat, final float outputBytesPerFrame) {
+        final long frameCount = (long) Math.ceil((lengthInSeconds + RENDER_TAIL_SECONDS) * audioFormat.sampleRate());
+        // The growing render buffer, its final copy and the limiter output are alive at the same time, followed by the encoded file
+        final long renderBytes = frameCount * audioFormat.channels() * Float.BYTES * RENDER_BUFFER_COPIES;
+        return renderBytes + (long) Math.ceil(frameCount * outputBytesPerFrame);
+    }
+
+    private final ExecutorService executor;
+    private final CpuBudget cpuBudget;
+    private final MemoryBudget memoryBudget;
+
+    public ExportScheduler(final int threadCount, final long memoryBudget) {
+        this(threadCount, memoryBudget, ExportThrottle.NONE);
+    }
+
+    public ExportScheduler(final int threadCount, final long memoryBudget, final ExportThrottle throttle) {
+        // The throttle limits the song workers and every core used for parallel mixing and encoding, since they all take it from the cpu budget
+        // Songs are independent jobs which block while waiting for memory, so a plain fixed pool runs them in the sorted order
+        final int cores = throttle.getCores();
+        this.executor = Executors.newFixedThreadPool(Math.min(threadCount, cores), runnable -> {
+            final Thread thread = new Thread(runnable, "Export Worker");
+            thread.setDaemon(true);
+            thread.setPriority(throttle.getThreadPriority());
+            return thread;
+        });
+        this.cpuBudget = new CpuBudget(cores);
+        this.memoryBudget = new MemoryBudget(memoryBudget);
+    }
+
+    public <T> void run(final List<T> jobs, final ToDoubleFunction<T> costFunction, final ToLongFunction<T> memoryFunction, final Consumer<T> jobRunner) throws InterruptedException {
+        // Starting the most expensive jobs first avoids ending the batch with a single long job running on one core
+        final List<T> sortedJobs = new ArrayList<>(jobs);
+        sortedJobs.sort(Comparator.comparingDouble(costFunction).reversed());
+        final CountDownLatch remainingJobs = new CountDownLatch(sortedJobs.size());
+        for (T job : sortedJobs) {
+            this.executor.execute(() -> {
+                final long memory = memoryFunction.applyAsLong(job);
+                try {
+                    // Jobs wait for their memory before taking a core, so queued jobs don't block parallel mixing
+                    this.memoryBudget.acquire(memory);
+                    try {
+                        this.cpuBudget.acquire();
+                        try {
+                            jobRunner.accept(job);
+                        } finally {
+                            this.cpuBudget.release(1);
+                        }
+                    } finally {
+                        this.memoryBudget.release(memory);
+                    }
+                } catch (InterruptedException ignored) {
+                } finally {
+                    remainingJobs.countDown();
+                }
+            });
+        }
+        remainingJobs.await();
+    }
+
+    public CpuBudget getCpuBudget() {
+        return this.cpuBudget;
+    }
+
+    @Override
+    public void close() {
+        // Running jobs are interrupted and awaited, so nothing they still write to is closed under them
+        this.executor.shutdownNow();
+        boolean interrupted = false;
+        while (!this.executor.isTerminated()) {
+            try {
+                this.executor.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,32 @@
+/*
+ * This file is part of NoteBlockTool - https://github.com/RaphiMC/NoteBlockTool
+ * Copyright (C) 2022-2026 RK_01/RaphiMC and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.raphimc.noteblocktool.export;
+
+public record ExportThrottle(float cpuFraction, boolean lowPriority, float maxRealtimeFactor) {
+
+    public static final ExportThrottle NONE = new ExportThrottle(1F, false, 0F);
+
+    public int getCores() {
+        return Math.max(1, Math.round(Runtime.getRuntime().availableProcessors() * this.cpuFraction));
+    }
+
+    public int getThreadPriority() {
+        return this.lowPriority ? Thread.MIN_PRIORITY : Thread.NORM_PRIORITY;
+    }
+
+}
@@ -0,0 +1,80 @@
+/*
+ * This file is part of NoteBlockTool - https://github.com/RaphiMC/NoteBlockTool
+ * Copyright (C) 2022-2026 RK_01/RaphiMC and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.raphimc.noteblocktool.export;
+
+import java.util.List;
+import java.util.Locale;
+
+public class ExportThroughput {
+
+    private static final long MEBIBYTE = 1024 * 1024;
+
+    private final float elapsedSeconds;
+    private float renderedSeconds;
+    private float songRealtimeFactors;
+    private int startedSongs;
+    private long renderedNotes;
+    private int peakVoices;
+    private long voiceSum;
+    private long voiceSamples;
+    private float encodedSeconds;
+    private long encodedBytes;
+    private long encodeNanos;
+
+    public ExportThroughput(final List<ExportProgress> progresses, final long elapsedNanos) {
+        this.elapsedSeconds = Math.max(elapsedNanos, 1) / 1_000_000_000F;
+        for (ExportProgress progress : progresses) {
+            if (!progress.isStarted()) {
+                continue;
+            }
+            this.renderedSeconds += progress.getRenderedSeconds();
+            this.songRealtimeFactors += progress.getRealtimeFactor();
+            this.startedSongs++;
+            this.renderedNotes += progress.getRenderedNotes();
+            this.peakVoices = Math.max(this.peakVoices, progress.getPeakVoices());
+            this.voiceSum += progress.getVoiceSum();
+            this.voiceSamples += progress.getVoiceSamples();
+            if (progress.getEncodeNanos() != 0) {
+                this.encodedSeconds += progress.getLengthInSeconds();
+                this.encodedBytes += progress.getEncodedBytes();
+                this.encodeNanos += progress.getEncodeNanos();
+            }
+        }
+    }
+
+    public String getRealtimeFactorText() {
+        return String.format(Locale.ROOT, "Realtime Factor: %.1fx overall, %.1fx per song", this.renderedSeconds / this.elapsedSeconds, this.startedSongs == 0 ? 0F : this.songRealtimeFactors / this.startedSongs);
+    }
+
+    public String getNotesText() {
+        return String.format(Locale.ROOT, "Notes: %,.0f / s", this.renderedNotes / this.elapsedSeconds);
+    }
+
+    public String getVoicesText() {
+        return String.format(Locale.ROOT, "Voices: %d peak, %.1f average", this.peakVoices, this.voiceSamples == 0 ? 0F : (float) this.voiceSum / this.voiceSamples);
+    }
+
+    public String getEncoderText() {
+        if (this.encodeNanos == 0) {
+            return "Encoder: -";
+        }
+        final float encodeSeconds = this.encodeNanos / 1_000_000_000F;
+        return String.format(Locale.ROOT, "Encoder: %.1fx realtime, %.2f MiB / s", this.encodedSeconds / encodeSeconds, this.encodedBytes / encodeSeconds / MEBIBYTE);
+    }
+
+}
@@ -0,0 +1,384 @@
+/*
+ * This file is part of NoteBlockTool - https://github.com/RaphiMC/NoteBlockTool
+ * Copyright (C) 2022-2026 RK_01/RaphiMC and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.raphimc.noteblocktool.export;
+
+import com.sun.jna.Memory;
+import com.sun.jna.Pointer;
+import net.lenni0451.commons.math.MathUtils;
+import net.raphimc.audiomixer.util.FloatAudioFormat;
+import net.raphimc.noteblocklib.model.song.Song;
+import net.raphimc.noteblocktool.audio.library.LameLibrary;
+import net.raphimc.noteblocktool.audio.util.LameException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class Mp3Encoder {
+
+    private static final Set<Integer> MP3_SAMPLE_RATES = Set.of(8000, 11025, 12000, 16000, 22050, 24000, 32000, 44100, 48000);
+    private static final int[] MPEG1_BITRATES = {0, 32, 40, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320};
+    private static final int[] MPEG2_BITRATES = {0, 8, 16, 24, 32, 40, 48, 56, 64, 80, 96, 112, 128, 144, 160};
+    private static final int[][] SAMPLE_RATES = {{11025, 12000, 8000}, {}, {22050, 24000, 16000}, {44100, 48000, 32000}};
+    private static final int FLUSH_BUFFER_SIZE = 7200;
+    private static final int PREROLL_FRAMES = 4;
+    private static final int SEGMENT_FRAMES = 2048;
+    private static final int CHUNK_FRAMES = 1152 * 64;
+    private static final int[] CRC16_TABLE = new int[256];
+    private static final ThreadLocal<NativeBuffers> NATIVE_BUFFERS = ThreadLocal.withInitial(NativeBuffers::new);
+    private static final ExecutorService SEGMENT_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        final Thread thread = new Thread(runnable, "MP3 Segment Encoder");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        for (int i = 0; i < CRC16_TABLE.length; i++) {
+            int crc = i;
+            for (int bit = 0; bit < 8; bit++) {
+                crc = (crc & 1) != 0 ? (crc >>> 1) ^ 0xA001 : crc >>> 1;
+            }
+            CRC16_TABLE[i] = crc;
+        }
+    }
+
+    private final Song song;
+    private final float vbrQuality;
+
+    public Mp3Encoder(final Song song, final float vbrQuality) {
+        this.song = song;
+        this.vbrQuality = vbrQuality;
+    }
+
+    public long write(final OutputStream outputStream, final float[] samples, final FloatAudioFormat format, final boolean segmented, final int threadCount) throws IOException, InterruptedException {
+        final int frameCount = samples.length / format.channels();
+        final int frameSamples = getFrameSamples(format);
+        final int segmentCount = segmented ? getSegmentCount(frameCount, format) : 1;
+        if (segmentCount <= 1) {
+            final EncodedSegment segment = this.encode(samples, format, 0, frameCount, true, false);
+            System.arraycopy(segment.lameTagFrame, 0, segment.data, 0, segment.lameTagFrame.length);
+            outputStream.write(segment.id3v2Tag);
+            outputStream.write(segment.data, 0, segment.length);
+            outputStream.write(segment.id3v1Tag);
+            return segment.length;
+        } else {
+            return this.writeSegmented(outputStream, samples, format, frameSamples, segmentCount, Math.max(1, threadCount));
+        }
+    }
+
+    public static int getSegmentCount(final int frameCount, final FloatAudioFormat format) {
+        final int sampleRate = (int) format.sampleRate();
+        if (!MP3_SAMPLE_RATES.contains(sampleRate) || sampleRate != format.sampleRate()) {
+            return 1; // LAME would resample the input, which breaks the frame alignment of the segments
+        }
+        // The segment boundaries only depend on the length of the song, so the output is the same no matter how many threads encode it
+        return Math.max(1, frameCount / getFrameSamples(format) / SEGMENT_FRAMES);
+    }
+
+    private static int getFrameSamples(final FloatAudioFormat format) {
+        return format.sampleRate() >= 32000 ? 1152 : 576;
+    }
+
+    private long writeSegmented(final OutputStream outputStream, final float[] samples, final FloatAudioFormat format, final int frameSamples, final int segmentCount, final int threadCount) throws IOException, InterruptedException {
+        // Segments start at MP3 frame boundaries and are encoded with a few frames of pre-roll which are dropped afterward.
+        // LAME adds the same encoder delay to every segment, so the remaining frames line up exactly with the frames of a single stream.
+        // The bit reservoir is disabled, because a frame must not reference data of a dropped frame.
+        final int frameCount = samples.length / format.channels();
+        final int inputFrameCount = frameCount / frameSamples;
+        final int[] boundaries = new int[segmentCount + 1];
+        for (int i = 0; i <= segmentCount; i++) {
+            boundaries[i] = (int) ((long) inputFrameCount * i / segmentCount);
+        }
+
+        final List<Future<EncodedSegment>> futures = new ArrayList<>(segmentCount);
+        final EncodedSegment[] segments = new EncodedSegment[segmentCount];
+        try {
+            // At most threadCount segments are encoded at once, the next one is started whenever the oldest one is done
+            for (int i = 0; i < Math.min(threadCount, segmentCount); i++) {
+                futures.add(this.submitSegment(samples, format, frameSamples, boundaries, i));
+            }
+            for (int i = 0; i < segmentCount; i++) {
+                segments[i] = futures.get(i).get();
+                if (futures.size() < segmentCount) {
+                    futures.add(this.submitSegment(samples, format, frameSamples, boundaries, futures.size()));
+                }
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IOException("Failed to encode MP3 segment", e.getCause());
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+
+        final List<int[]> keptFrames = new ArrayList<>();
+        long musicBytes = 0;
+        int musicCrc = 0;
+        for (int i = 0; i < segmentCount; i++) {
+            final EncodedSegment segment = segments[i];
+            final List<int[]> frames = parseFrames(segment.data, segment.length);
+            final int skip = i == 0 ? 1 : PREROLL_FRAMES; // The first segment starts with the placeholder for the LAME tag frame
+            final int keep = i == segmentCount - 1 ? frames.size() - skip : boundaries[i + 1] - boundaries[i];
+            if (frames.size() < skip + keep) {
+                throw new IOException("MP3 segment " + i + " contains too few frames");
+            }
+            for (int[] frame : frames.subList(skip, skip + keep)) {
+                keptFrames.add(new int[]{i, frame[0], frame[1]});
+                musicBytes += frame[1];
+                musicCrc = crc16(musicCrc, segment.data, frame[0], frame[1]);
+            }
+        }
+
+        final EncodedSegment firstSegment = segments[0];
+        final byte[] lameTagFrame = firstSegment.lameTagFrame;
+        final List<int[]> firstSegmentFrames = parseFrames(firstSegment.data, firstSegment.length);
+        final long tableOfContentsBytes = lameTagFrame.length + musicBytes;
+        final byte[] tableOfContents = new byte[100];
+        long offset = lameTagFrame.length;
+        int frameIndex = 0;
+        for (int i = 0; i < tableOfContents.length; i++) {
+            final int targetFrame = (int) ((long) keptFrames.size() * i / tableOfContents.length);
+            while (frameIndex < targetFrame) {
+                offset += keptFrames.get(frameIndex++)[2];
+            }
+            tableOfContents[i] = (byte) Math.min(255, offset * 256 / tableOfContentsBytes);
+        }
+        final long firstSegmentMusicSamples = (long) (firstSegmentFrames.size() - 1) * frameSamples;
+        patchLameTag(lameTagFrame, firstSegment.length, firstSegmentFrames.size(), firstSegmentMusicSamples - firstSegment.sampleCount, 1 + keptFrames.size(), lameTagFrame.length + musicBytes, (long) keptFrames.size() * frameSamples - frameCount, musicCrc, tableOfContents);
+
+        outputStream.write(firstSegment.id3v2Tag);
+        outputStream.write(lameTagFrame);
+        for (int[] frame : keptFrames) {
+            outputStream.write(segments[frame[0]].data, frame[1], frame[2]);
+        }
+        outputStream.write(firstSegment.id3v1Tag);
+        return lameTagFrame.length + musicBytes;
+    }
+
+    private Future<EncodedSegment> submitSegment(final float[] samples, final FloatAudioFormat format, final int frameSamples, final int[] boundaries, final int index) {
+        final int frameCount = samples.length / format.channels();
+        final boolean first = index == 0;
+        final int startSample = first ? 0 : (boundaries[index] - PREROLL_FRAMES) * frameSamples;
+        final int endSample = index == boundaries.length - 2 ? frameCount : Math.min(frameCount, (boundaries[index + 1] + PREROLL_FRAMES) * frameSamples);
+        return SEGMENT_EXECUTOR.submit(() -> this.encode(samples, format, startSample, endSample, first, true));
+    }
+
+    static void patchLameTag(final byte[] frame, final int firstSegmentLength, final int firstSegmentFrames, final long firstSegmentPadding, final int frameCount, final long byteCount, final long padding, final int musicCrc, final byte[] tableOfContents) throws IOException {
+        int position = indexOf(frame, "Xing");
+        if (position == -1) {
+            position = indexOf(frame, "Info");
+        }
+        if (position == -1) {
+            throw new IOException("LAME tag frame doesn't contain a Xing header");
+        }
+        // The fields written by LAME for the first segment are compared with its own output, so the same conventions are used for the whole stream
+        final int flags = (int) readInt(frame, position + 4, 4);
+        position += 8;
+        if ((flags & 1) != 0) {
+            writeInt(frame, position, 4, frameCount + readInt(frame, position, 4) - firstSegmentFrames);
+            position += 4;
+        }
+        if ((flags & 2) != 0) {
+            writeInt(frame, position, 4, byteCount + readInt(frame, position, 4) - firstSegmentLength);
+            position += 4;
+        }
+        if ((flags & 4) != 0) {
+            System.arraycopy(tableOfContents, 0, frame, position, tableOfContents.length);
+            position += tableOfContents.length;
+        }
+        if ((flags & 8) != 0) {
+            position += 4;
+        }
+        if (position + 36 > frame.length || !new String(frame, position, 4, StandardCharsets.ISO_8859_1).equals("LAME")) {
+            return;
+        }
+
+        final int delayAndPadding = (int) readInt(frame, position + 21, 3);
+        final long newPadding = padding - (firstSegmentPadding - (delayAndPadding & 0xFFF));
+        if (newPadding < 0 || newPadding > 0xFFF) {
+            throw new IOException("Invalid encoder padding: " + newPadding);
+        }
+        writeInt(frame, position + 21, 3, (delayAndPadding & 0xFFF000) | newPadding);
+        writeInt(frame, position + 28, 4, byteCount + readInt(frame, position + 28, 4) - firstSegmentLength);
+        writeInt(frame, position + 32, 2, musicCrc);
+        writeInt(frame, position + 34, 2, crc16(0, frame, 0, position + 34));
+    }
+
+    private EncodedSegment encode(final float[] samples, final FloatAudioFormat format, final int startSample, final int endSample, final boolean first, final boolean segmented) {
+        final int channels = format.channels();
+        final Pointer lame = LameLibrary.INSTANCE.lame_init();
+        if (lame == null) {
+            throw new IllegalStateException("Failed to create LAME instance");
+        }
+        Throwable failure = null;
+        try {
+            LameException.check(LameLibrary.INSTANCE.lame_set_in_samplerate(lame, (int) format.sampleRate()), "Failed to set sample rate");
+            LameException.check(LameLibrary.INSTANCE.lame_set_num_channels(lame, channels), "Failed to set channels");
+            LameException.check(LameLibrary.INSTANCE.lame_set_VBR(lame, LameLibrary.vbr_default), "Failed to set VBR mode");
+            LameException.check(LameLibrary.INSTANCE.lame_set_VBR_quality(lame, this.vbrQuality), "Failed to set VBR quality");
+            if (segmented) {
+                LameException.check(LameLibrary.INSTANCE.lame_set_disable_reservoir(lame, 1), "Failed to disable bit reservoir");
+                if (!first) {
+                    LameException.check(LameLibrary.INSTANCE.lame_set_bWriteVbrTag(lame, 0), "Failed to disable VBR tag");
+                }
+            }
+            LameLibrary.INSTANCE.id3tag_init(lame);
+            LameLibrary.INSTANCE.lame_set_write_id3tag_automatic(lame, false);
+            if (this.song.getTitle() != null) {
+                LameLibrary.INSTANCE.id3tag_set_title(lame, this.song.getTitle());
+            }
+            if (this.song.getAuthor() != null) {
+                LameLibrary.INSTANCE.id3tag_set_artist(lame, this.song.getAuthor());
+            }
+            if (this.song.getDescription() != null) {
+                LameLibrary.INSTANCE.id3tag_set_comment(lame, this.song.getDescription());
+            }
+            LameException.check(LameLibrary.INSTANCE.id3tag_set_fieldvalue(lame, "TXXX=Renderer=NoteBlockTool"), "Failed to set custom ID3 tag");
+            LameException.check(LameLibrary.INSTANCE.lame_init_params(lame), "Failed to initialize LAME instance");
+
+            final int sampleCount = endSample - startSample;
+            final NativeBuffers nativeBuffers = NATIVE_BUFFERS.get();
+            byte[] data = new byte[MathUtils.ceilInt(1.25F * sampleCount + 7200) + FLUSH_BUFFER_SIZE];
+            int length = 0;
+            // The samples are passed to LAME in chunks through reused native buffers instead of letting JNA copy the whole song on every call
+            for (int sample = startSample; sample < endSample; sample += CHUNK_FRAMES) {
+                final int chunkFrames = Math.min(CHUNK_FRAMES, endSample - sample);
+                nativeBuffers.pcm.write(0, samples, sample * channels, chunkFrames * channels);
+                final int chunkLength = LameException.check(switch (channels) {
+                    case 1 -> LameLibrary.INSTANCE.lame_encode_buffer_ieee_float(lame, nativeBuffers.pcm, null, chunkFrames, nativeBuffers.mp3, (int) nativeBuffers.mp3.size());
+                    case 2 -> LameLibrary.INSTANCE.lame_encode_buffer_interleaved_ieee_float(lame, nativeBuffers.pcm, chunkFrames, nativeBuffers.mp3, (int) nativeBuffers.mp3.size());
+                    default -> throw new UnsupportedOperationException("Unsupported channel count: " + channels);
+                }, "Failed to encode buffer");
+                data = readNative(nativeBuffers.mp3, chunkLength, data, length);
+                length += chunkLength;
+            }
+            final int trailerLength = LameException.check(LameLibrary.INSTANCE.lame_encode_flush(lame, nativeBuffers.mp3, (int) nativeBuffers.mp3.size()), "Failed to flush encoder");
+            data = readNative(nativeBuffers.mp3, trailerLength, data, length);
+            length += trailerLength;
+
+            if (!first) {
+                return new EncodedSegment(data, length, sampleCount, null, null, null);
+            }
+            final byte[] lameTagFrame = new byte[LameLibrary.INSTANCE.lame_get_lametag_frame(lame, null, 0)];
+            LameException.check(LameLibrary.INSTANCE.lame_get_lametag_frame(lame, lameTagFrame, lameTagFrame.length), "Failed to get LAME tag frame");
+            final byte[] id3v1Tag = new byte[LameLibrary.INSTANCE.lame_get_id3v1_tag(lame, null, 0)];
+            LameException.check(LameLibrary.INSTANCE.lame_get_id3v1_tag(lame, id3v1Tag, id3v1Tag.length), "Failed to get ID3v1 tag");
+            final byte[] id3v2Tag = new byte[LameLibrary.INSTANCE.lame_get_id3v2_tag(lame, null, 0)];
+            LameException.check(LameLibrary.INSTANCE.lame_get_id3v2_tag(lame, id3v2Tag, id3v2Tag.length), "Failed to get ID3v2 tag");
+            return new EncodedSegment(data, length, sampleCount, lameTagFrame, id3v1Tag, id3v2Tag);
+        } catch (Throwable t) {
+            failure = t;
+            throw t;
+        } finally {
+            try {
+                LameException.check(LameLibrary.INSTANCE.lame_close(lame), "Failed to close LAME instance");
+            } catch (LameException e) { // Don't hide why encoding failed behind a failure to clean up
+                if (failure == null) {
+                    throw e;
+                }
+                failure.addSuppressed(e);
+            }
+        }
+    }
+
+    static List<int[]> parseFrames(final byte[] data, final int length) throws IOException {
+        final List<int[]> frames = new ArrayList<>();
+        int position = 0;
+        while (position + 4 <= length) {
+            if ((data[position] & 0xFF) != 0xFF || (data[position + 1] & 0xE0) != 0xE0) {
+                throw new IOException("Invalid MP3 frame header at offset " + position);
+            }
+            final int version = (data[position + 1] >> 3) & 0x03;
+            final int bitrateIndex = (data[position + 2] >> 4) & 0x0F;
+            final int sampleRateIndex = (data[position + 2] >> 2) & 0x03;
+            final int padding = (data[position + 2] >> 1) & 0x01;
+            if (version == 1 || bitrateIndex == 0 || bitrateIndex == 15 || sampleRateIndex == 3) {
+                throw new IOException("Unsupported MP3 frame header at offset " + position);
+            }
+            final int frameLength;
+            if (version == 3) {
+                frameLength = 144000 * MPEG1_BITRATES[bitrateIndex] / SAMPLE_RATES[version][sampleRateIndex] + padding;
+            } else {
+                frameLength = 72000 * MPEG2_BITRATES[bitrateIndex] / SAMPLE_RATES[version][sampleRateIndex] + padding;
+            }
+            frames.add(new int[]{position, Math.min(frameLength, length - position)});
+            position += frameLength;
+        }
+        return frames;
+    }
+
+    private static byte[] readNative(final Memory memory, final int length, byte[] data, final int offset) {
+        if (offset + length > data.length) {
+            data = Arrays.copyOf(data, Math.max(offset + length, data.length * 3 / 2));
+        }
+        memory.read(0, data, offset, length);
+        return data;
+    }
+
+    private static int indexOf(final byte[] data, final String text) {
+        final byte[] bytes = text.getBytes(StandardCharsets.ISO_8859_1);
+        for (int i = 0; i <= Math.min(data.length, 64) - bytes.length; i++) {
+            if (Arrays.equals(data, i, i + bytes.length, bytes, 0, bytes.length)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static long readInt(final byte[] data, final int offset, final int length) {
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            value = (value << 8) | (data[offset + i] & 0xFF);
+        }
+        return value;
+    }
+
+    private static void writeInt(final byte[] data, final int offset, final int length, final long value) {
+        for (int i = 0; i < length; i++) {
+            data[offset + i] = (byte) (value >> ((length - 1 - i) * 8));
+        }
+    }
+
+    private static int crc16(int crc, final byte[] data, final int offset, final int length) {
+        for (int i = offset; i < offset + length; i++) {
+            crc = (crc >>> 8) ^ CRC16_TABLE[(crc ^ data[i]) & 0xFF];
+        }
+        return crc;
+    }
+
+    private record NativeBuffers(Memory pcm, Memory mp3) {
+
+        private NativeBuffers() {
+            this(new Memory((long) CHUNK_FRAMES * 2 * Float.BYTES), new Memory(MathUtils.ceilInt(1.25F * CHUNK_FRAMES + 7200)));
+        }
+
+    }
+
+    private record EncodedSegment(byte[] data, int length, int sampleCount, byte[] lameTagFrame, byte[] id3v1Tag, byte[] id3v2Tag) {
+    }
+
+}
@@ -0,0 +1,214 @@
+/*
+ * This file is part of NoteBlockTool - https://github.com/RaphiMC/NoteBlockTool
+ * Copyright (C) 2022-2026 RK_01/RaphiMC and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.raphimc.noteblocktool.export;
+
+import net.raphimc.audiomixer.util.FloatAudioFormat;
+import net.raphimc.audiomixer.util.buffer.AudioBuffer;
+import net.raphimc.noteblocklib.NoteBlockLib;
+import net.raphimc.noteblocklib.model.song.Song;
+import net.raphimc.noteblocktool.audio.SoundRegistry;
+import net.raphimc.noteblocktool.audio.renderer.impl.ProgressSongRenderer;
+import net.raphimc.noteblocktool.util.CpuBudget;
+import net.raphimc.noteblocktool.util.TempoMap;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+public class SongExporter {
+
+    private final ExportOptions options;
+    private final ExportThrottle throttle;
+    private final List<AudioOutput> audioOutputs;
+
+    public SongExporter(final ExportOptions options) {
+        this(options, ExportThrottle.NONE);
+    }
+
+    public SongExporter(final ExportOptions options, final ExportThrottle throttle) {
+        this.options = options;
+        this.throttle = throttle;
+        // Draft renders are also written at the reduced format, so the files stay small
+        this.audioOutputs = new ArrayList<>();
+        for (AudioOutput output : options.audioOutputs()) {
+            this.audioOutputs.add(new AudioOutput(output.format(), options.profile().getAudioFormat(output.audioFormat()), output.wavBitDepth(), output.wavDither(), output.mp3Quality(), output.mp3Segmented()));
+        }
+    }
+
+    public long estimateMemory(final Song song, final boolean archived) {
+        if (!this.options.isAudioFile()) {
+            return 0;
+        }
+        final FloatAudioFormat masterFormat = AudioOutput.getMasterFormat(this.audioOutputs);
+        float outputBytesPerFrame = 0F;
+        for (AudioOutput output : this.audioOutputs) {
+            final float frameRatio = output.audioFormat().sampleRate() / masterFormat.sampleRate();
+            if (!output.audioFormat().equals(masterFormat)) {
+                outputBytesPerFrame += frameRatio * output.audioFormat().channels() * Float.BYTES;
+            }
+            if (output.format() == AudioOutput.Format.MP3) {
+                outputBytesPerFrame += frameRatio * 1.25F; // Worst case output buffer size recommended by LAME
+            }
+            if (archived) { // Archived files are kept in memory until the archive writer has written them
+                outputBytesPerFrame += frameRatio * (output.format() == AudioOutput.Format.MP3 ? 1.25F : output.audioFormat().channels() * output.wavBitDepth() / 8F);
+            }
+        }
+        return ExportScheduler.estimateMemory(this.getRenderedLength(song), masterFormat, outputBytesPerFrame);
+    }
+
+    public float getRenderedLength(final Song song) {
+        if (this.options.preview() != null) {
+            return Math.min(this.options.preview().lengthInSeconds(), song.getLengthInSeconds());
+        }
+        return song.getLengthInSeconds();
+    }
+
+    public List<File> getOutputFiles(final File file) {
+        final List<File> files = new ArrayList<>();
+        files.add(file);
+        if (!this.options.isAudioFile()) {
+            return files;
+        }
+        final String baseName = file.getName().substring(0, file.getName().lastIndexOf('.'));
+        for (int i = 1; i < this.audioOutputs.size(); i++) {
+            final AudioOutput output = this.audioOutputs.get(i);
+            final String name = baseName + "_" + (int) output.audioFormat().sampleRate();
+            File outputFile = new File(file.getParentFile(), name + "." + output.format().getExtension());
+            for (int n = 2; files.contains(outputFile); n++) {
+                outputFile = new File(file.getParentFile(), name + "_" + n + "." + output.format().getExtension());
+            }
+            files.add(outputFile);
+        }
+        return files;
+    }
+
+    public void export(final Song song, final File file, final SoundRegistry soundRegistry, final CpuBudget sharedCpuBudget, final ArchiveWriter archive, final ExportProgress progress) throws Exception {
+        if (this.options.isSongFile()) {
+            progress.accept(ExportProgress.WRITING);
+            // Failures are reported per song by the caller, so a broken song doesn't block the other workers
+            NoteBlockLib.writeSong(NoteBlockLib.convertSong(song, this.options.songFormat()), file);
+            return;
+        }
+
+        // A throttled single export still has to stay within its cores, the rendering thread itself uses one of them
+        final CpuBudget cpuBudget = sharedCpuBudget != null || this.throttle.cpuFraction() >= 1F ? sharedCpuBudget : new CpuBudget(this.throttle.getCores() - 1);
+        final FloatAudioFormat masterFormat = AudioOutput.getMasterFormat(this.audioOutputs);
+        final ProgressSongRenderer songRenderer = new ProgressSongRenderer(song, soundRegistry, this.options.profile().getMaxSounds(this.options.maxSounds()), !this.options.globalNormalization() && this.options.profile().isLimited(), this.options.mixingMode(), masterFormat, progress);
+        songRenderer.setNearestNeighbourPitch(this.options.profile().isNearestNeighbourPitch());
+        songRenderer.setMasterVolume(this.options.volume());
+        songRenderer.setTimingJitter(this.options.timingJitter());
+        songRenderer.setDeterministic(this.options.deterministic());
+        songRenderer.setCpuBudget(cpuBudget);
+        songRenderer.setNoteAdmissionThreshold(this.options.admissionThreshold());
+        songRenderer.setMaxRealtimeFactor(this.throttle.maxRealtimeFactor());
+        final AudioBuffer buffer;
+        try {
+            buffer = this.options.preview() != null ? this.renderPreview(song, songRenderer) : songRenderer.renderSong();
+        } finally {
+            songRenderer.close();
+        }
+        if (this.options.globalNormalization() || !this.options.profile().isLimited()) {
+            buffer.limitToUnitRange();
+        }
+        final float[] samples = buffer.samples();
+        if (this.options.preview() != null) {
+            applyFades(samples, buffer.format());
+        }
+
+        progress.accept(this.audioOutputs.stream().allMatch(output -> output.format() == AudioOutput.Format.WAV) ? ExportProgress.WRITING : ExportProgress.ENCODING);
+        final long encodeStart = System.nanoTime();
+        // The outputs are only encoded in parallel on cores which aren't used by other songs, and only on as many as the outputs can use
+        final int usableCores = AudioOutput.getUsableThreadCount(this.audioOutputs, buffer.getFrameCount(), buffer.format());
+        final int freeCores = cpuBudget != null ? cpuBudget.tryAcquire(usableCores - 1) : Math.min(usableCores, this.throttle.getCores()) - 1;
+        try {
+            final List<File> files = this.getOutputFiles(file);
+            if (archive != null) {
+                final List<ByteArrayOutputStream> outputStreams = new ArrayList<>();
+                for (int i = 0; i < files.size(); i++) {
+                    outputStreams.add(new ByteArrayOutputStream());
+                }
+                final long encodedBytes = AudioOutput.writeAll(this.audioOutputs, outputStreams, songRenderer.getSong(), samples, buffer.format(), 1 + freeCores);
+                progress.recordEncoding(encodedBytes, System.nanoTime() - encodeStart);
+                progress.accept(ExportProgress.WRITING);
+                for (int i = 0; i < files.size(); i++) {
+                    archive.add(files.get(i).getName(), outputStreams.get(i));
+                }
+            } else {
+                final List<FileOutputStream> outputStreams = new ArrayList<>();
+                try {
+                    for (File outputFile : files) {
+                        outputStreams.add(new FileOutputStream(outputFile));
+                    }
+                    final long encodedBytes = AudioOutput.writeAll(this.audioOutputs, outputStreams, songRenderer.getSong(), samples, buffer.format(), 1 + freeCores);
+                    progress.recordEncoding(encodedBytes, System.nanoTime() - encodeStart);
+                } finally {
+                    for (FileOutputStream outputStream : outputStreams) {
+                        outputStream.close();
+                    }
+                }
+            }
+        } finally {
+            if (cpuBudget != null) {
+                cpuBudget.release(freeCores);
+            }
+        }
+    }
+
+    private AudioBuffer renderPreview(final Song song, final ProgressSongRenderer songRenderer) throws InterruptedException {
+        final PreviewSettings preview = this.options.preview();
+        final TempoMap tempoMap = new TempoMap(song);
+        final int startTick = preview.isAutoStart() ? tempoMap.findDensestWindow(preview.lengthInSeconds()) : tempoMap.getTick(preview.startSeconds());
+        final float startSeconds = tempoMap.getSeconds(startTick);
+        // The longest sound played at the lowest Minecraft pitch (half speed) is the longest time a note can still be heard
+        final int preRollTick = tempoMap.getTick(startSeconds - songRenderer.getLongestSoundSeconds() * 2F);
+        songRenderer.setProgressTicks(preRollTick, tempoMap.getTick(startSeconds + preview.lengthInSeconds()));
+        return songRenderer.renderClip(preRollTick, startSeconds - tempoMap.getSeconds(preRollTick), preview.lengthInSeconds());
+    }
+
+    private static void applyFades(final float[] samples, final FloatAudioFormat audioFormat) {
+        // A short fade in avoids a click at the cut, the fade out ends the clip smoothly
+        final int channels = audioFormat.channels();
+        final int frameCount = samples.length / channels;
+        final int fadeInFrames = Math.min(frameCount / 2, (int) (PreviewSettings.FADE_IN_SECONDS * audioFormat.sampleRate()));
+        final int fadeOutFrames = Math.min(frameCount / 2, (int) (PreviewSettings.FADE_OUT_SECONDS * audioFormat.sampleRate()));
+        for (int frame = 0; frame < fadeInFrames; frame++) {
+            final float gain = (float) frame / fadeInFrames;
+            for (int channel = 0; channel < channels; channel++) {
+                samples[frame * channels + channel] *= gain;
+            }
+        }
+        for (int frame = 0; frame < fadeOutFrames; frame++) {
+            final float gain = (float) frame / fadeOutFrames;
+            final int index = (frameCount - 1 - frame) * channels;
+            for (int channel = 0; channel < channels; channel++) {
+                samples[index + channel] *= gain;
+            }
+        }
+    }
+
+    public ExportOptions getOptions() {
+        return this.options;
+    }
+
+    public ExportThrottle getThrottle() {
+        return this.throttle;
+    }
+
+}
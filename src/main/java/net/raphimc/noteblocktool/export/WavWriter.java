@@ -0,0 +1,151 @@
+/*
+ * This file is part of NoteBlockTool - https://github.com/RaphiMC/NoteBlockTool
+ * Copyright (C) 2022-2026 RK_01/RaphiMC and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.raphimc.noteblocktool.export;
+
+import net.raphimc.audiomixer.util.FloatAudioFormat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class WavWriter {
+
+    private static final int HEADER_SIZE = 44;
+    private static final int CHUNK_FRAMES = 64 * 1024;
+    private static final ExecutorService CHUNK_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        final Thread thread = new Thread(runnable, "WAV Chunk Converter");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public static long write(final WritableByteChannel channel, final float[] samples, final FloatAudioFormat format, final int bitDepth, final boolean dither, final int threadCount) throws IOException, InterruptedException {
+        final long dataSize = (long) samples.length * (bitDepth / 8);
+        if (dataSize > 0xFFFFFFFFL - HEADER_SIZE) {
+            throw new IOException("Audio data is too large for a WAV file");
+        }
+
+        final Deque<Future<ByteBuffer>> pendingChunks = new ArrayDeque<>();
+        try {
+            final ByteBuffer header = createHeader(format, bitDepth, dataSize);
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+
+            // Chunks are converted in parallel and written in order, so only a few converted chunks are in memory at once.
+            // Every pending chunk may be converting, so there are never more pending chunks than threads
+            final int maxPendingChunks = Math.max(1, threadCount);
+            final int chunkSamples = CHUNK_FRAMES * format.channels();
+            for (int start = 0; start < samples.length; start += chunkSamples) {
+                final int chunkStart = start;
+                final int chunkEnd = Math.min(samples.length, start + chunkSamples);
+                final SplittableRandom random = dither ? new SplittableRandom(chunkStart) : null; // Seeded by position to keep exports reproducible
+                pendingChunks.add(CHUNK_EXECUTOR.submit(() -> convert(samples, chunkStart, chunkEnd, bitDepth, random)));
+                if (pendingChunks.size() >= maxPendingChunks) {
+                    writeChunks(channel, pendingChunks, Math.max(1, maxPendingChunks / 2));
+                }
+            }
+            writeChunks(channel, pendingChunks, pendingChunks.size());
+            return HEADER_SIZE + dataSize;
+        } finally {
+            pendingChunks.forEach(chunk -> chunk.cancel(true));
+        }
+    }
+
+    public static int getChunkCount(final int frameCount) {
+        return Math.max(1, (frameCount + CHUNK_FRAMES - 1) / CHUNK_FRAMES);
+    }
+
+    private static void writeChunks(final WritableByteChannel channel, final Deque<Future<ByteBuffer>> pendingChunks, final int count) throws IOException, InterruptedException {
+        if (count == 0) {
+            return;
+        }
+        final ByteBuffer[] chunks = new ByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            try {
+                chunks[i] = pendingChunks.poll().get();
+            } catch (ExecutionException e) {
+                throw new IOException("Failed to convert audio data", e.getCause());
+            }
+        }
+        if (channel instanceof GatheringByteChannel gatheringChannel) {
+            while (chunks[count - 1].hasRemaining()) {
+                gatheringChannel.write(chunks);
+            }
+        } else {
+            for (ByteBuffer chunk : chunks) {
+                while (chunk.hasRemaining()) {
+                    channel.write(chunk);
+                }
+            }
+        }
+    }
+
+    private static ByteBuffer createHeader(final FloatAudioFormat format, final int bitDepth, final long dataSize) {
+        final int blockAlign = format.channels() * (bitDepth / 8);
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.put("RIFF".getBytes(StandardCharsets.US_ASCII));
+        header.putInt((int) (HEADER_SIZE - 8 + dataSize));
+        header.put("WAVE".getBytes(StandardCharsets.US_ASCII));
+        header.put("fmt ".getBytes(StandardCharsets.US_ASCII));
+        header.putInt(16);
+        header.putShort((short) 1); // PCM
+        header.putShort((short) format.channels());
+        header.putInt((int) format.sampleRate());
+        header.putInt((int) format.sampleRate() * blockAlign);
+        header.putShort((short) blockAlign);
+        header.putShort((short) bitDepth);
+        header.put("data".getBytes(StandardCharsets.US_ASCII));
+        header.putInt((int) dataSize);
+        return header.flip();
+    }
+
+    private static ByteBuffer convert(final float[] samples, final int start, final int end, final int bitDepth, final SplittableRandom random) {
+        final ByteBuffer chunk = ByteBuffer.allocate((end - start) * (bitDepth / 8)).order(ByteOrder.LITTLE_ENDIAN);
+        final double maxValue = (1L << (bitDepth - 1)) - 1;
+        for (int i = start; i < end; i++) {
+            double value = Math.max(-1D, Math.min(1D, samples[i])) * maxValue;
+            if (random != null) {
+                value += random.nextDouble() - random.nextDouble(); // Triangular noise with an amplitude of one LSB
+            }
+            final long sample = Math.round(Math.max(-maxValue - 1, Math.min(maxValue, value)));
+            switch (bitDepth) {
+                case 8 -> chunk.put((byte) (sample + 128)); // 8 bit WAV samples are unsigned
+                case 16 -> chunk.putShort((short) sample);
+                case 24 -> {
+                    chunk.put((byte) sample);
+                    chunk.put((byte) (sample >> 8));
+                    chunk.put((byte) (sample >> 16));
+                }
+                case 32 -> chunk.putInt((int) sample);
+                default -> throw new UnsupportedOperationException("Unsupported bit depth: " + bitDepth);
+            }
+        }
+        return chunk.flip();
+    }
+
+}
@@ -0,0 +1,295 @@
+/*
+ * This file is part of NoteBlockTool - https://github.com/RaphiMC/NoteBlockTool
+ * Copyright (C) 2022-2026 RK_01/RaphiMC and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.raphimc.noteblocktool.export.distributed;
+
+import net.raphimc.noteblocktool.Main;
+import net.raphimc.noteblocktool.export.ArchiveWriter;
+import net.raphimc.noteblocktool.export.ExportOptions;
+import net.raphimc.noteblocktool.export.ExportThrottle;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+public class ExportCoordinator implements AutoCloseable {
+
+    private static final long POLL_MILLIS = 250;
+    private static final long JOB_TIMEOUT_MILLIS_PER_BYTE = 10;
+
+    private final ServerSocket serverSocket;
+    private final ExportOptions options;
+    private final int retries;
+    private final int workerTimeout;
+    private final List<Process> localWorkers = new ArrayList<>();
+    private final List<Socket> connections = new ArrayList<>();
+
+    public ExportCoordinator(final InetAddress bindAddress, final int port, final ExportOptions options, final int retries, final int workerTimeout) throws IOException {
+        // The protocol has no authentication, so only the given interface accepts workers
+        this.serverSocket = new ServerSocket(port, 50, bindAddress);
+        this.options = options;
+        this.retries = retries;
+        this.workerTimeout = workerTimeout;
+    }
+
+    public void startLocalWorkers(final int workerCount, final int threadCount, final ExportThrottle throttle) throws IOException {
+        // Separate JVMs don't share a heap, so the garbage collector and the native encoder don't contend across workers
+        final String java = ProcessHandle.current().info().command().orElse(new File(System.getProperty("java.home"), "bin/java").getAbsolutePath());
+        final InetAddress address = this.serverSocket.getInetAddress().isAnyLocalAddress() ? InetAddress.getLoopbackAddress() : this.serverSocket.getInetAddress();
+        for (int i = 0; i < workerCount; i++) {
+            final List<String> command = new ArrayList<>(List.of(java, "-cp", System.getProperty("java.class.path"), Main.class.getName(), "worker", "--connect", address.getHostAddress() + ":" + this.serverSocket.getLocalPort(), "--threads", String.valueOf(threadCount)));
+            // The local workers share the cpu limit of this machine
+            command.addAll(List.of("--cpu-limit", String.valueOf(Math.max(1, Math.round(throttle.cpuFraction() * 100F / workerCount)))));
+            if (throttle.lowPriority()) {
+                command.add("--background");
+            }
+            if (throttle.maxRealtimeFactor() > 0F) {
+                command.addAll(List.of("--max-realtime-factor", String.valueOf((int) throttle.maxRealtimeFactor())));
+            }
+            final ProcessBuilder processBuilder = new ProcessBuilder(command);
+            processBuilder.inheritIO();
+            this.localWorkers.add(processBuilder.start());
+        }
+    }
+
+    public List<JobResult> run(final List<File> songFiles, final File outputFolder, final ArchiveWriter archive, final Consumer<JobResult> resultListener) throws InterruptedException {
+        // Song files aren't parsed here, the file size is a good enough guess to start the longest jobs first
+        final List<Job> jobs = new ArrayList<>();
+        for (File songFile : songFiles) {
+            jobs.add(new Job(jobs.size(), songFile));
+        }
+        jobs.sort(Comparator.comparingLong((Job job) -> job.file.length()).reversed());
+
+        final Batch batch = new Batch(new LinkedBlockingDeque<>(jobs), outputFolder, archive, resultListener, jobs.size());
+        final Thread acceptThread = new Thread(() -> {
+            while (!this.serverSocket.isClosed()) {
+                try {
+                    final Socket socket = this.serverSocket.accept();
+                    synchronized (this.connections) {
+                        this.connections.add(socket);
+                    }
+                    final Thread thread = new Thread(() -> this.handleConnection(socket, batch), "Export Coordinator Connection");
+                    thread.setDaemon(true);
+                    thread.start();
+                } catch (SocketException ignored) {
+                } catch (IOException e) {
+                    System.err.println("Failed to accept export worker: " + e.getMessage());
+                }
+            }
+        }, "Export Coordinator");
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+
+        // Without any connected or starting worker the remaining jobs can't make progress, so they fail instead of waiting forever
+        long lastWorkerTime = System.nanoTime();
+        while (!batch.finished.await(POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+            final boolean connected;
+            synchronized (this.connections) {
+                connected = !this.connections.isEmpty();
+            }
+            if (connected || this.localWorkers.stream().anyMatch(Process::isAlive)) {
+                lastWorkerTime = System.nanoTime();
+            } else if (!this.localWorkers.isEmpty()) {
+                batch.failPending("All local workers exited");
+            } else if (System.nanoTime() - lastWorkerTime > this.workerTimeout * 1_000_000_000L) {
+                batch.failPending("No export worker connected within " + this.workerTimeout + " seconds");
+            }
+        }
+        synchronized (batch.results) {
+            return new ArrayList<>(batch.results);
+        }
+    }
+
+    public String getAddress() {
+        return this.serverSocket.getInetAddress().getHostAddress() + ":" + this.serverSocket.getLocalPort();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.serverSocket.close();
+        synchronized (this.connections) {
+            for (Socket connection : this.connections) {
+                connection.close();
+            }
+        }
+        for (Process localWorker : this.localWorkers) {
+            localWorker.destroy();
+        }
+    }
+
+    private void handleConnection(final Socket socket, final Batch batch) {
+        final String worker = socket.getInetAddress().getHostAddress() + ":" + socket.getPort();
+        Job job = null;
+        try (socket) {
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout((int) Math.min(Integer.MAX_VALUE, this.workerTimeout * 1000L));
+            final DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            WorkerProtocol.readHandshake(in);
+            WorkerProtocol.writeHandshake(out);
+            WorkerProtocol.writeOptions(out, this.options);
+            out.flush();
+
+            while (true) {
+                job = batch.pendingJobs.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (job == null) {
+                    if (batch.remainingJobs.get() == 0) {
+                        out.writeByte(WorkerProtocol.SHUTDOWN);
+                        out.flush();
+                        return;
+                    }
+                    continue;
+                }
+
+                job.attempts++;
+                // The worker only answers once the job is rendered and encoded. The file size stands in for the cost of the job, so a hung worker can't block the batch
+                socket.setSoTimeout((int) Math.min(Integer.MAX_VALUE, this.workerTimeout * 1000L + job.file.length() * JOB_TIMEOUT_MILLIS_PER_BYTE));
+                out.writeByte(WorkerProtocol.JOB);
+                out.writeInt(job.id);
+                out.writeUTF(job.file.getName());
+                WorkerProtocol.writeFile(out, job.file);
+                out.flush();
+
+                final byte type = in.readByte();
+                if (in.readInt() != job.id) {
+                    throw new IOException("Worker answered for the wrong job");
+                }
+                if (type == WorkerProtocol.RESULT) {
+                    final long elapsedNanos = in.readLong();
+                    final float lengthInSeconds = in.readFloat();
+                    final long renderedNotes = in.readLong();
+                    final int peakVoices = in.readInt();
+                    final long encodedBytes = in.readLong();
+                    final long encodeNanos = in.readLong();
+                    final int outputCount = in.readInt();
+                    for (int i = 0; i < outputCount; i++) {
+                        this.receiveOutput(in, new File(in.readUTF()).getName(), batch);
+                    }
+                    batch.complete(new JobResult(job.file.getPath(), worker, job.attempts, null, elapsedNanos, lengthInSeconds, renderedNotes, peakVoices, encodedBytes, encodeNanos));
+                } else if (type == WorkerProtocol.FAILURE) {
+                    final String error = in.readUTF();
+                    batch.fail(job, worker, error, this.retries);
+                } else {
+                    throw new IOException("Unexpected message: " + type);
+                }
+                job = null;
+            }
+        } catch (InterruptedException ignored) {
+        } catch (SocketTimeoutException e) {
+            System.err.println("Export worker " + worker + " timed out");
+            if (job != null) {
+                batch.fail(job, worker, "Worker timed out", this.retries);
+            }
+        } catch (Throwable t) {
+            // The worker is gone, its job is handed to the next idle connection
+            System.err.println("Lost export worker " + worker + ": " + t.getMessage());
+            if (job != null) {
+                batch.fail(job, worker, "Lost worker: " + t.getMessage(), this.retries);
+            }
+        } finally {
+            synchronized (this.connections) {
+                this.connections.remove(socket);
+            }
+        }
+    }
+
+    private void receiveOutput(final DataInputStream in, final String name, final Batch batch) throws IOException, InterruptedException {
+        if (batch.archive != null) {
+            final ByteArrayOutputStream data = new ByteArrayOutputStream();
+            WorkerProtocol.readFile(in, data);
+            batch.archive.add(name, data);
+        } else {
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(new File(batch.outputFolder, name)))) {
+                WorkerProtocol.readFile(in, out);
+            }
+        }
+    }
+
+    private static class Job {
+
+        private final int id;
+        private final File file;
+        private int attempts;
+
+        private Job(final int id, final File file) {
+            this.id = id;
+            this.file = file;
+        }
+
+    }
+
+    private static class Batch {
+
+        private final BlockingDeque<Job> pendingJobs;
+        private final File outputFolder;
+        private final ArchiveWriter archive;
+        private final Consumer<JobResult> resultListener;
+        private final AtomicInteger remainingJobs;
+        private final CountDownLatch finished = new CountDownLatch(1);
+        private final List<JobResult> results = new ArrayList<>();
+
+        private Batch(final BlockingDeque<Job> pendingJobs, final File outputFolder, final ArchiveWriter archive, final Consumer<JobResult> resultListener, final int jobCount) {
+            this.pendingJobs = pendingJobs;
+            this.outputFolder = outputFolder;
+            this.archive = archive;
+            this.resultListener = resultListener;
+            this.remainingJobs = new AtomicInteger(jobCount);
+            if (jobCount == 0) {
+                this.finished.countDown();
+            }
+        }
+
+        private void fail(final Job job, final String worker, final String error, final int retries) {
+            if (job.attempts <= retries) {
+                this.pendingJobs.addFirst(job);
+            } else {
+                this.complete(new JobResult(job.file.getPath(), worker, job.attempts, error, 0, 0F, 0, 0, 0, 0));
+            }
+        }
+
+        private void failPending(final String error) {
+            Job job;
+            while ((job = this.pendingJobs.poll()) != null) {
+                this.complete(new JobResult(job.file.getPath(), "none", job.attempts, error, 0, 0F, 0, 0, 0, 0));
+            }
+        }
+
+        private void complete(final JobResult result) {
+            synchronized (this.results) {
+                this.results.add(result);
+            }
+            this.resultListener.accept(result);
+            if (this.remainingJobs.decrementAndGet() == 0) {
+                this.finished.countDown();
+            }
+        }
+
+    }
+
+}
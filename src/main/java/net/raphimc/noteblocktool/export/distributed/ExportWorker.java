@@ -0,0 +1,172 @@
+/*
+ * This file is part of NoteBlockTool - https://github.com/RaphiMC/NoteBlockTool
+ * Copyright (C) 2022-2026 RK_01/RaphiMC and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.raphimc.noteblocktool.export.distributed;
+
+import net.raphimc.noteblocklib.NoteBlockLib;
+import net.raphimc.noteblocklib.model.song.Song;
+import net.raphimc.noteblocktool.audio.SoundMap;
+import net.raphimc.noteblocktool.export.ExportProgress;
+import net.raphimc.noteblocktool.export.ExportThrottle;
+import net.raphimc.noteblocktool.export.SongExporter;
+import net.raphimc.noteblocktool.util.CpuBudget;
+import net.raphimc.noteblocktool.util.ExceptionUtil;
+
+import java.io.*;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ExportWorker {
+
+    private static final int CONNECT_ATTEMPTS = 30;
+    private static final long CONNECT_RETRY_MILLIS = 2000;
+
+    private final InetSocketAddress coordinator;
+    private final int threadCount;
+    private final ExportThrottle throttle;
+    private final CpuBudget cpuBudget;
+
+    public ExportWorker(final InetSocketAddress coordinator, final int threadCount, final ExportThrottle throttle) {
+        this.coordinator = coordinator;
+        this.threadCount = Math.min(threadCount, throttle.getCores());
+        this.throttle = throttle;
+        this.cpuBudget = new CpuBudget(throttle.getCores());
+    }
+
+    public void run() throws InterruptedException {
+        // Every thread has its own connection and handles one job at a time, the coordinator hands out jobs to whichever connection is idle
+        final List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < this.threadCount; i++) {
+            final Thread thread = new Thread(() -> {
+                try {
+                    this.runConnection();
+                } catch (Throwable t) {
+                    System.err.println("Export worker connection failed: " + t.getMessage());
+                }
+            }, "Export Worker #" + i);
+            thread.setDaemon(true);
+            thread.setPriority(this.throttle.getThreadPriority());
+            thread.start();
+            threads.add(thread);
+        }
+        try {
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        } finally {
+            threads.forEach(Thread::interrupt);
+        }
+    }
+
+    private void runConnection() throws IOException, InterruptedException {
+        final File tempDirectory = Files.createTempDirectory("noteblocktool-worker").toFile();
+        try (Socket socket = this.connect()) {
+            final DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            WorkerProtocol.writeHandshake(out);
+            WorkerProtocol.readHandshake(in);
+            final SongExporter exporter = new SongExporter(WorkerProtocol.readOptions(in), this.throttle);
+
+            while (true) {
+                final byte type = in.readByte();
+                if (type == WorkerProtocol.SHUTDOWN) {
+                    break;
+                } else if (type != WorkerProtocol.JOB) {
+                    throw new IOException("Unexpected message: " + type);
+                }
+
+                final int jobId = in.readInt();
+                final String fileName = new File(in.readUTF()).getName();
+                final File songFile = new File(tempDirectory, fileName);
+                try (OutputStream songOut = new FileOutputStream(songFile)) {
+                    WorkerProtocol.readFile(in, songOut);
+                }
+
+                final List<File> outputFiles = new ArrayList<>();
+                try {
+                    final Song song;
+                    final ExportProgress progress;
+                    try {
+                        song = NoteBlockLib.readSong(songFile);
+                        progress = new ExportProgress(exporter.getRenderedLength(song));
+                        final File outputFile = new File(tempDirectory, fileName.substring(0, fileName.lastIndexOf('.')) + "." + exporter.getOptions().getExtension());
+                        outputFiles.addAll(exporter.getOutputFiles(outputFile));
+                        this.cpuBudget.acquire();
+                        try {
+                            exporter.export(song, outputFile, SoundMap.getRegistry(), this.cpuBudget, null, progress);
+                        } finally {
+                            this.cpuBudget.release(1);
+                        }
+                        progress.finish();
+                    } catch (InterruptedException e) {
+                        throw e;
+                    } catch (Throwable t) {
+                        t.printStackTrace();
+                        out.writeByte(WorkerProtocol.FAILURE);
+                        out.writeInt(jobId);
+                        out.writeUTF(ExceptionUtil.getDescription(t));
+                        out.flush();
+                        continue;
+                    }
+
+                    out.writeByte(WorkerProtocol.RESULT);
+                    out.writeInt(jobId);
+                    out.writeLong(progress.getElapsedNanos());
+                    out.writeFloat(progress.getLengthInSeconds());
+                    out.writeLong(progress.getRenderedNotes());
+                    out.writeInt(progress.getPeakVoices());
+                    out.writeLong(progress.getEncodedBytes());
+                    out.writeLong(progress.getEncodeNanos());
+                    out.writeInt(outputFiles.size());
+                    for (File outputFile : outputFiles) {
+                        out.writeUTF(outputFile.getName());
+                        WorkerProtocol.writeFile(out, outputFile);
+                    }
+                    out.flush();
+                } finally {
+                    songFile.delete();
+                    outputFiles.forEach(File::delete);
+                }
+            }
+        } finally {
+            tempDirectory.delete();
+        }
+    }
+
+    private Socket connect() throws IOException, InterruptedException {
+        // Workers may be started before the coordinator is listening
+        for (int attempt = 1; ; attempt++) {
+            final Socket socket = new Socket();
+            try {
+                socket.connect(this.coordinator);
+                socket.setTcpNoDelay(true);
+                return socket;
+            } catch (ConnectException e) {
+                socket.close();
+                if (attempt >= CONNECT_ATTEMPTS) {
+                    throw e;
+                }
+                Thread.sleep(CONNECT_RETRY_MILLIS);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,127 @@
+/*
+ * This file is part of NoteBlockTool - https://github.com/RaphiMC/NoteBlockTool
+ * Copyright (C) 2022-2026 RK_01/RaphiMC and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.raphimc.noteblocktool.export.distributed;
+
+import net.raphimc.audiomixer.util.FloatAudioFormat;
+import net.raphimc.noteblocklib.format.SongFormat;
+import net.raphimc.noteblocktool.audio.renderer.MixingMode;
+import net.raphimc.noteblocktool.audio.renderer.RenderProfile;
+import net.raphimc.noteblocktool.export.AudioOutput;
+import net.raphimc.noteblocktool.export.ExportOptions;
+import net.raphimc.noteblocktool.export.PreviewSettings;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+
+public class WorkerProtocol {
+
+    public static final int DEFAULT_PORT = 25590;
+    public static final int MAGIC = 0x4E425457; // NBTW
+    public static final int VERSION = 3;
+
+    public static final byte JOB = 1;
+    public static final byte RESULT = 2;
+    public static final byte FAILURE = 3;
+    public static final byte SHUTDOWN = 4;
+
+    private static final int TRANSFER_BUFFER_SIZE = 64 * 1024;
+
+    public static void writeHandshake(final DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.flush();
+    }
+
+    public static void readHandshake(final DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a NoteBlockTool export connection");
+        }
+        final int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported protocol version: " + version + " (expected " + VERSION + ")");
+        }
+    }
+
+    public static void writeOptions(final DataOutputStream out, final ExportOptions options) throws IOException {
+        out.writeUTF(options.songFormat() != null ? options.songFormat().name() : "");
+        out.writeInt(options.audioOutputs().size());
+        for (AudioOutput output : options.audioOutputs()) {
+            out.writeUTF(output.format().name());
+            out.writeFloat(output.audioFormat().sampleRate());
+            out.writeInt(output.audioFormat().channels());
+            out.writeInt(output.wavBitDepth());
+            out.writeBoolean(output.wavDither());
+            out.writeInt(output.mp3Quality());
+            out.writeBoolean(output.mp3Segmented());
+        }
+        out.writeInt(options.volume());
+        out.writeBoolean(options.timingJitter());
+        out.writeInt(options.maxSounds());
+        out.writeInt(options.admissionThreshold());
+        out.writeBoolean(options.globalNormalization());
+        out.writeUTF(options.mixingMode().name());
+        out.writeBoolean(options.deterministic());
+        out.writeBoolean(options.preview() != null);
+        if (options.preview() != null) {
+            out.writeFloat(options.preview().lengthInSeconds());
+            out.writeFloat(options.preview().startSeconds());
+        }
+        out.writeUTF(options.profile().name());
+    }
+
+    public static ExportOptions readOptions(final DataInputStream in) throws IOException {
+        try {
+            final String songFormat = in.readUTF();
+            final int outputCount = in.readInt();
+            final List<AudioOutput> audioOutputs = new ArrayList<>(outputCount);
+            for (int i = 0; i < outputCount; i++) {
+                final AudioOutput.Format format = AudioOutput.Format.valueOf(in.readUTF());
+                final FloatAudioFormat audioFormat = new FloatAudioFormat(in.readFloat(), in.readInt());
+                audioOutputs.add(new AudioOutput(format, audioFormat, in.readInt(), in.readBoolean(), in.readInt(), in.readBoolean()));
+            }
+            return new ExportOptions(songFormat.isEmpty() ? null : SongFormat.valueOf(songFormat), audioOutputs, in.readInt(), in.readBoolean(), in.readInt(), in.readInt(), in.readBoolean(), MixingMode.valueOf(in.readUTF()), in.readBoolean(), in.readBoolean() ? new PreviewSettings(in.readFloat(), in.readFloat()) : null, RenderProfile.valueOf(in.readUTF()));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid export options", e);
+        }
+    }
+
+    public static void writeFile(final DataOutputStream out, final File file) throws IOException {
+        out.writeLong(file.length());
+        try (InputStream in = new FileInputStream(file)) {
+            in.transferTo(out);
+        }
+    }
+
+    public static void readFile(final DataInputStream in, final OutputStream out) throws IOException {
+        long remaining = in.readLong();
+        if (remaining < 0) {
+            throw new IOException("Invalid file length: " + remaining);
+        }
+        final byte[] buffer = new byte[(int) Math.min(remaining, TRANSFER_BUFFER_SIZE)];
+        while (remaining > 0) {
+            final int read = in.read(buffer, 0, (int) Math.min(remaining, buffer.length));
+            if (read < 0) {
+                throw new EOFException();
+            }
+            out.write(buffer, 0, read);
+            remaining -= read;
+        }
+    }
+
+}
@@ -17,51 +17,51 @@
  */
 package net.raphimc.noteblocktool.frames;
 
-import com.sun.jna.Pointer;
-import it.unimi.dsi.fastutil.floats.FloatConsumer;
-import net.lenni0451.commons.math.MathUtils;
 import net.lenni0451.commons.swing.GBC;
 import net.lenni0451.commons.swing.components.ScrollPaneSizedPanel;
-import net.lenni0451.commons.swing.layouts.VerticalLayout;
-import net.raphimc.audiomixer.io.AudioIO;
 import net.raphimc.audiomixer.util.FloatAudioFormat;
-import net.raphimc.audiomixer.util.buffer.AudioBuffer;
-import net.raphimc.noteblocklib.NoteBlockLib;
 import net.raphimc.noteblocklib.format.SongFormat;
-import net.raphimc.noteblocklib.model.song.Song;
+import net.raphimc.noteblocktool.audio.SoundMap;
+import net.raphimc.noteblocktool.audio.SoundRegistry;
 import net.raphimc.noteblocktool.audio.library.LameLibrary;
-import net.raphimc.noteblocktool.audio.renderer.SongRenderer;
-import net.raphimc.noteblocktool.audio.renderer.impl.ProgressSongRenderer;
-import net.raphimc.noteblocktool.audio.util.LameException;
+import net.raphimc.noteblocktool.audio.renderer.MixingMode;
+import net.raphimc.noteblocktool.audio.renderer.RenderProfile;
+import net.raphimc.noteblocktool.elements.ExportProgressList;
 import net.raphimc.noteblocktool.elements.FastScrollPane;
 import net.raphimc.noteblocktool.elements.VerticalFileChooser;
+import net.raphimc.noteblocktool.export.ArchiveWriter;
+import net.raphimc.noteblocktool.export.AudioOutput;
+import net.raphimc.noteblocktool.export.ExportOptions;
+import net.raphimc.noteblocktool.export.ExportProgress;
+import net.raphimc.noteblocktool.export.ExportScheduler;
+import net.raphimc.noteblocktool.export.ExportThrottle;
+import net.raphimc.noteblocktool.export.ExportThroughput;
+import net.raphimc.noteblocktool.export.PreviewSettings;
+import net.raphimc.noteblocktool.export.SongExporter;
+import net.raphimc.noteblocktool.util.ExceptionUtil;
 import net.raphimc.noteblocktool.util.filefilter.SingleFileFilter;
 
-import javax.sound.sampled.AudioFileFormat;
-import javax.sound.sampled.AudioInputStream;
-import javax.sound.sampled.AudioSystem;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.io.File;
-import java.io.FileOutputStream;
-import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.function.Function;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class ExportFrame extends JFrame {
 
+    private static final long MEBIBYTE = 1024 * 1024;
+
     private final ListFrame parent;
     private final List<ListFrame.LoadedSong> loadedSongs;
     private final JLabel formatLabel = new JLabel("Format:");
     private final JComboBox<OutputFormat> format = new JComboBox<>(OutputFormat.values());
+    private final JLabel outputTargetLabel = new JLabel("Output:");
+    private final JComboBox<OutputTarget> outputTarget = new JComboBox<>(OutputTarget.values());
 
     // Audio File settings
     private final JPanel audioFilePanel = new JPanel(new GridBagLayout());
@@ -69,24 +69,50 @@ public class ExportFrame extends JFrame {
     private final JComboBox<Channels> channels = new JComboBox<>(Channels.values());
     private final JLabel wavBitDepthLabel = new JLabel("WAV Bit Depth:");
     private final JComboBox<WavBitDepth> wavBitDepth = new JComboBox<>(WavBitDepth.values());
+    private final JCheckBox wavDither = new JCheckBox("Dither");
     private final JLabel mp3QualityLabel = new JLabel("MP3 Quality:");
     private final JSlider mp3Quality = new JSlider(0, 100, 60);
+    private final JCheckBox mp3Segmented = new JCheckBox("Parallel Encoding");
+    private final JTextField additionalOutputs = new JTextField();
 
     // Playback settings
     private final JPanel playbackPanel = new JPanel(new GridBagLayout());
     private final JSlider volume = new JSlider(0, 100, 50);
     private final JCheckBox timingJitter = new JCheckBox("Artificial Timing Jitter");
+    private final JCheckBox previewClip = new JCheckBox("Preview Clip");
+    private final JSpinner previewLength = new JSpinner(new SpinnerNumberModel(15, 1, 600, 1));
+    private final JCheckBox previewAutoStart = new JCheckBox("Start at the Densest Part");
+    private final JSpinner previewStart = new JSpinner(new SpinnerNumberModel(0, 0, Integer.MAX_VALUE, 1));
 
     // Renderer settings
     private final JPanel rendererPanel = new JPanel(new GridBagLayout());
+    private final JComboBox<RenderProfile> renderProfile = new JComboBox<>(RenderProfile.values());
     private final JSpinner maxSounds = new JSpinner(new SpinnerNumberModel(16384, 64, 131070, 64));
+    private final JSpinner admissionThreshold = new JSpinner(new SpinnerNumberModel(0, 0, 120, 6));
     private final JCheckBox globalNormalization = new JCheckBox("Global Normalization");
-    private final JCheckBox threaded = new JCheckBox("Multithreaded Rendering");
-
-    private final JPanel progressPanel = new JPanel();
+    private final JComboBox<MixingMode> mixingMode = new JComboBox<>(MixingMode.values());
+    private final JCheckBox deterministic = new JCheckBox("Deterministic Rendering");
+    private final JSpinner memoryBudget = new JSpinner(new SpinnerNumberModel(Math.max(64, (int) (Runtime.getRuntime().maxMemory() / MEBIBYTE * 3 / 4)), 64, Integer.MAX_VALUE, 64));
+    private final JSpinner cpuLimit = new JSpinner(new SpinnerNumberModel(100, 10, 100, 5));
+    private final JSpinner maxRealtimeFactor = new JSpinner(new SpinnerNumberModel(0, 0, 10000, 1));
+    private final JCheckBox backgroundPriority = new JCheckBox("Background Priority");
+
+    private final JPanel throughputPanel = new JPanel(new GridBagLayout());
+    private final JLabel realtimeFactorLabel = new JLabel();
+    private final JLabel notesLabel = new JLabel();
+    private final JLabel voicesLabel = new JLabel();
+    private final JLabel encoderLabel = new JLabel();
+    private final List<ExportProgress> exportProgresses = new ArrayList<>();
+    private long exportStart;
+
+    private final ExportProgressList progressPanel = new ExportProgressList();
     private final JProgressBar progressBar = new JProgressBar();
     private final JButton export = new JButton("Export");
+    private final Map<ListFrame.LoadedSong, ExportProgress> songProgresses = new ConcurrentHashMap<>();
+    private final AtomicInteger finishedSongs = new AtomicInteger();
+    private final Timer progressTimer = new Timer(100, e -> this.updateProgress());
     private Thread exportThread;
+    private SongExporter exporter;
 
     public ExportFrame(final ListFrame parent, final List<ListFrame.LoadedSong> loadedSongs) {
         this.parent = parent;
@@ -118,6 +144,10 @@ public class ExportFrame extends JFrame {
             GBC.create(northPanel).nextColumn().insets(5, 5, 5, 5).weightx(1).fill(GBC.HORIZONTAL).add(this.format, format -> {
                 format.addActionListener(e -> this.updateVisibility(true));
             });
+            GBC.create(northPanel).nextRow().insets(0, 5, 5, 5).anchor(GBC.LINE_START).add(this.outputTargetLabel);
+            GBC.create(northPanel).nextColumn().insets(0, 5, 5, 5).weightx(1).fill(GBC.HORIZONTAL).add(this.outputTarget, outputTarget -> {
+                outputTarget.setToolTipText("Archives are written by a single thread while the songs are exported, without creating any temporary files.");
+            });
         }
 
         { // Center panel
@@ -138,6 +168,9 @@ public class ExportFrame extends JFrame {
                 GBC.create(audioFilePanel).nextColumn().insets(5, 0, 5, 5).weightx(1).fill(GBC.HORIZONTAL).add(this.wavBitDepth, wavBitDepth -> {
                     wavBitDepth.setSelectedItem(WavBitDepth.PCM16);
                 });
+                GBC.create(audioFilePanel).nextRow().insets(0, 5, 5, 5).width(2).anchor(GBC.LINE_START).add(this.wavDither, wavDither -> {
+                    wavDither.setToolTipText("Adds triangular noise of one least significant bit before the samples are rounded.\nThis turns quantization distortion into a constant, very quiet noise floor.");
+                });
                 GBC.create(audioFilePanel).nextRow().insets(5, 5, 5, 5).anchor(GBC.LINE_START).add(this.mp3QualityLabel);
                 GBC.create(audioFilePanel).nextColumn().insets(5, 0, 5, 5).weightx(1).fill(GBC.HORIZONTAL).add(this.mp3Quality, mp3Quality -> {
                     mp3Quality.setMajorTickSpacing(10);
@@ -145,6 +178,13 @@ public class ExportFrame extends JFrame {
                     mp3Quality.setPaintTicks(true);
                     mp3Quality.setPaintLabels(true);
                 });
+                GBC.create(audioFilePanel).nextRow().insets(0, 5, 5, 5).width(2).anchor(GBC.LINE_START).add(this.mp3Segmented, mp3Segmented -> {
+                    mp3Segmented.setToolTipText("Splits long songs into segments which are encoded on multiple threads and joined without gaps.\nThe bit reservoir is disabled for this, which makes the files slightly larger.");
+                });
+                GBC.create(audioFilePanel).nextRow().insets(0, 5, 5, 5).anchor(GBC.LINE_START).add(new JLabel("Additional Outputs:"));
+                GBC.create(audioFilePanel).nextColumn().insets(0, 0, 5, 5).weightx(1).fill(GBC.HORIZONTAL).add(this.additionalOutputs, additionalOutputs -> {
+                    additionalOutputs.setToolTipText("Comma separated list of additional files which are encoded from the same render, for example: wav:48000:24, mp3:22050:20\nThe format is followed by the sample rate and the WAV bit depth or MP3 quality. Missing values are taken from the settings above.");
+                });
             });
 
             GBC.create(centerPanel).nextRow().insets(5, 5, 0, 5).width(2).weightx(1).fill(GBC.HORIZONTAL).add(this.playbackPanel, playbackPanel -> {
@@ -156,23 +196,72 @@ public class ExportFrame extends JFrame {
                     volume.setPaintLabels(true);
                     volume.setPaintTicks(true);
                 });
-                GBC.create(playbackPanel).nextRow().insets(5, 5, 5, 5).width(2).anchor(GBC.LINE_START).add(this.timingJitter, timingJitter -> {
+                GBC.create(playbackPanel).nextRow().insets(5, 5, 0, 5).width(2).anchor(GBC.LINE_START).add(this.timingJitter, timingJitter -> {
                     timingJitter.setToolTipText("Adds slight timing jitter (±1ms) to make the song sound more natural and less artificial.\nThis emulates the behaviour of playing the song in Note Block Studio.");
                 });
+                GBC.create(playbackPanel).nextRow().insets(5, 5, 0, 5).width(2).anchor(GBC.LINE_START).add(this.previewClip, previewClip -> {
+                    previewClip.setToolTipText("Only exports a short clip of every song, which fades out at the end.\nNotes which started before the clip are still heard at its start.");
+                    previewClip.addActionListener(e -> this.updatePreviewControls());
+                });
+                GBC.create(playbackPanel).nextRow().insets(5, 5, 0, 5).anchor(GBC.LINE_START).add(new JLabel("Clip Length (s):"));
+                GBC.create(playbackPanel).nextColumn().insets(5, 0, 0, 5).weightx(1).fill(GBC.HORIZONTAL).add(this.previewLength);
+                GBC.create(playbackPanel).nextRow().insets(5, 5, 0, 5).width(2).anchor(GBC.LINE_START).add(this.previewAutoStart, previewAutoStart -> {
+                    previewAutoStart.setToolTipText("Starts the clip at the part of the song with the most notes.");
+                    previewAutoStart.setSelected(true);
+                    previewAutoStart.addActionListener(e -> this.updatePreviewControls());
+                });
+                GBC.create(playbackPanel).nextRow().insets(5, 5, 5, 5).anchor(GBC.LINE_START).add(new JLabel("Clip Start (s):"));
+                GBC.create(playbackPanel).nextColumn().insets(5, 0, 5, 5).weightx(1).fill(GBC.HORIZONTAL).add(this.previewStart);
+                this.updatePreviewControls();
             });
 
             GBC.create(centerPanel).nextRow().insets(5, 5, 0, 5).width(2).weightx(1).fill(GBC.HORIZONTAL).add(this.rendererPanel, rendererPanel -> {
                 rendererPanel.setBorder(BorderFactory.createTitledBorder("Renderer"));
-                GBC.create(rendererPanel).nextRow().insets(0, 5, 0, 5).anchor(GBC.LINE_START).add(new JLabel("Max Sounds:"));
-                GBC.create(rendererPanel).nextColumn().insets(0, 0, 0, 5).weightx(1).fill(GBC.HORIZONTAL).add(this.maxSounds);
+                GBC.create(rendererPanel).nextRow().insets(0, 5, 0, 5).anchor(GBC.LINE_START).add(new JLabel("Profile:"));
+                GBC.create(rendererPanel).nextColumn().insets(0, 0, 0, 5).weightx(1).fill(GBC.HORIZONTAL).add(this.renderProfile, renderProfile -> {
+                    renderProfile.setToolTipText("Draft renders mono at 16 kHz with at most 256 sounds, without the limiter and without pitch interpolation.\nThis is much faster and makes small files for quick listening checks.");
+                });
+                GBC.create(rendererPanel).nextRow().insets(5, 5, 0, 5).anchor(GBC.LINE_START).add(new JLabel("Max Sounds:"));
+                GBC.create(rendererPanel).nextColumn().insets(5, 0, 0, 5).weightx(1).fill(GBC.HORIZONTAL).add(this.maxSounds);
+                GBC.create(rendererPanel).nextRow().insets(5, 5, 0, 5).anchor(GBC.LINE_START).add(new JLabel("Note Admission Threshold (dB):"));
+                GBC.create(rendererPanel).nextColumn().insets(5, 0, 0, 5).weightx(1).fill(GBC.HORIZONTAL).add(this.admissionThreshold, admissionThreshold -> {
+                    admissionThreshold.setToolTipText("Notes which are quieter than the loudest note of the same tick by more than this amount are not played.\nThis greatly reduces the sound count of songs with thousands of quiet notes per tick. 0 plays all notes.");
+                });
                 GBC.create(rendererPanel).nextRow().insets(5, 5, 0, 5).width(2).anchor(GBC.LINE_START).add(this.globalNormalization);
-                GBC.create(rendererPanel).nextRow().insets(5, 5, 5, 5).width(2).anchor(GBC.LINE_START).add(this.threaded);
+                GBC.create(rendererPanel).nextRow().insets(5, 5, 0, 5).width(2).anchor(GBC.LINE_START).add(this.deterministic, deterministic -> {
+                    deterministic.setToolTipText("Makes repeated exports of the same song produce byte-identical files.\nThe timing jitter is seeded from the notes of the song and all sounds are mixed on a single thread in a fixed order.\nMultiple songs are still exported in parallel, but a single song renders slower than with multithreaded mixing.");
+                });
+                GBC.create(rendererPanel).nextRow().insets(5, 5, 0, 5).anchor(GBC.LINE_START).add(new JLabel("Mixing:"));
+                GBC.create(rendererPanel).nextColumn().insets(5, 0, 0, 5).weightx(1).fill(GBC.HORIZONTAL).add(this.mixingMode, mixingMode -> {
+                    mixingMode.setToolTipText("Multithreaded and Adaptive mixing also export multiple songs in parallel.\nAdaptive switches between single-threaded and multithreaded mixing depending on how many sounds are playing.");
+                });
+                GBC.create(rendererPanel).nextRow().insets(5, 5, 0, 5).anchor(GBC.LINE_START).add(new JLabel("Memory Budget (MiB):"));
+                GBC.create(rendererPanel).nextColumn().insets(5, 0, 0, 5).weightx(1).fill(GBC.HORIZONTAL).add(this.memoryBudget, memoryBudget -> {
+                    memoryBudget.setToolTipText("Songs which are exported in parallel may not use more memory than this together.\nSongs which don't fit wait until others have finished.");
+                });
+                GBC.create(rendererPanel).nextRow().insets(5, 5, 0, 5).anchor(GBC.LINE_START).add(new JLabel("CPU Limit (%):"));
+                GBC.create(rendererPanel).nextColumn().insets(5, 0, 0, 5).weightx(1).fill(GBC.HORIZONTAL).add(this.cpuLimit, cpuLimit -> {
+                    cpuLimit.setToolTipText("Percentage of the CPU cores which may be used by the export.\nThis includes songs exported in parallel, multithreaded mixing and parallel encoding.");
+                });
+                GBC.create(rendererPanel).nextRow().insets(5, 5, 0, 5).anchor(GBC.LINE_START).add(new JLabel("Max Realtime Factor:"));
+                GBC.create(rendererPanel).nextColumn().insets(5, 0, 0, 5).weightx(1).fill(GBC.HORIZONTAL).add(this.maxRealtimeFactor, maxRealtimeFactor -> {
+                    maxRealtimeFactor.setToolTipText("Songs are not rendered faster than this multiple of their playback speed. 0 renders as fast as possible.");
+                });
+                GBC.create(rendererPanel).nextRow().insets(5, 5, 5, 5).width(2).anchor(GBC.LINE_START).add(this.backgroundPriority, backgroundPriority -> {
+                    backgroundPriority.setToolTipText("Runs the export threads with the lowest priority, so long exports don't slow down other programs.");
+                });
             });
 
-            GBC.create(centerPanel).nextRow().insets(5, 5, 0, 5).width(1).width(2).weight(1, 1).fill(GBC.BOTH).add(this.progressPanel, progressPanel -> {
-                progressPanel.setLayout(new VerticalLayout(5, 5));
+            GBC.create(centerPanel).nextRow().insets(5, 5, 0, 5).width(2).weightx(1).fill(GBC.HORIZONTAL).add(this.throughputPanel, throughputPanel -> {
+                throughputPanel.setBorder(BorderFactory.createTitledBorder("Throughput"));
+                GBC.create(throughputPanel).nextRow().insets(0, 5, 0, 5).weightx(1).anchor(GBC.LINE_START).add(this.realtimeFactorLabel);
+                GBC.create(throughputPanel).nextRow().insets(5, 5, 0, 5).weightx(1).anchor(GBC.LINE_START).add(this.notesLabel);
+                GBC.create(throughputPanel).nextRow().insets(5, 5, 0, 5).weightx(1).anchor(GBC.LINE_START).add(this.voicesLabel);
+                GBC.create(throughputPanel).nextRow().insets(5, 5, 5, 5).weightx(1).anchor(GBC.LINE_START).add(this.encoderLabel);
             });
 
+            GBC.create(centerPanel).nextRow().insets(5, 5, 0, 5).width(1).width(2).weight(1, 1).fill(GBC.BOTH).add(this.progressPanel);
+
             GBC.fillVerticalSpace(centerPanel);
         }
 
@@ -193,25 +282,39 @@ public class ExportFrame extends JFrame {
             final OutputFormat outputFormat = (OutputFormat) this.format.getSelectedItem();
             this.formatLabel.setVisible(true);
             this.format.setVisible(true);
+            this.outputTargetLabel.setVisible(this.loadedSongs.size() > 1 && outputFormat.isAudioFile());
+            this.outputTarget.setVisible(this.loadedSongs.size() > 1 && outputFormat.isAudioFile());
             this.audioFilePanel.setVisible(outputFormat.isAudioFile());
             this.playbackPanel.setVisible(outputFormat.isAudioFile());
             this.rendererPanel.setVisible(outputFormat.isAudioFile());
+            this.throughputPanel.setVisible(false);
             this.progressPanel.setVisible(false);
 
             this.wavBitDepthLabel.setVisible(outputFormat.isAudioFile() && outputFormat.equals(OutputFormat.WAV));
             this.wavBitDepth.setVisible(outputFormat.isAudioFile() && outputFormat.equals(OutputFormat.WAV));
+            this.wavDither.setVisible(outputFormat.isAudioFile() && outputFormat.equals(OutputFormat.WAV));
             this.mp3QualityLabel.setVisible(outputFormat.isAudioFile() && outputFormat.equals(OutputFormat.MP3));
             this.mp3Quality.setVisible(outputFormat.isAudioFile() && outputFormat.equals(OutputFormat.MP3));
+            this.mp3Segmented.setVisible(outputFormat.isAudioFile() && outputFormat.equals(OutputFormat.MP3));
         } else {
             this.formatLabel.setVisible(false);
             this.format.setVisible(false);
+            this.outputTargetLabel.setVisible(false);
+            this.outputTarget.setVisible(false);
             this.audioFilePanel.setVisible(false);
             this.playbackPanel.setVisible(false);
             this.rendererPanel.setVisible(false);
+            this.throughputPanel.setVisible(((OutputFormat) this.format.getSelectedItem()).isAudioFile());
             this.progressPanel.setVisible(true);
         }
     }
 
+    private void updatePreviewControls() {
+        this.previewLength.setEnabled(this.previewClip.isSelected());
+        this.previewAutoStart.setEnabled(this.previewClip.isSelected());
+        this.previewStart.setEnabled(this.previewClip.isSelected() && !this.previewAutoStart.isSelected());
+    }
+
     private void initFrameHandler() {
         this.addWindowListener(new WindowAdapter() {
             @Override
@@ -224,6 +327,7 @@ public class ExportFrame extends JFrame {
                     } catch (InterruptedException ignored) {
                     }
                 }
+                ExportFrame.this.progressTimer.stop();
                 ExportFrame.this.parent.setEnabled(true);
                 ExportFrame.this.dispose();
             }
@@ -239,24 +343,39 @@ public class ExportFrame extends JFrame {
             } catch (InterruptedException ignored) {
             }
 
-            this.progressPanel.removeAll();
+            this.progressTimer.stop();
+            this.songProgresses.clear();
+            this.progressPanel.clear();
             this.export.setText("Export");
             this.progressBar.setValue(0);
             this.updateVisibility(true);
             return;
         }
 
+        try {
+            this.exporter = new SongExporter(this.createOptions(), new ExportThrottle((int) this.cpuLimit.getValue() / 100F, this.backgroundPriority.isSelected(), (int) this.maxRealtimeFactor.getValue()));
+        } catch (IllegalArgumentException e) {
+            JOptionPane.showMessageDialog(this, "Invalid additional outputs:\n" + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
         File out = this.openFileChooser();
         if (out == null) return;
 
-        this.progressPanel.removeAll();
+        this.songProgresses.clear();
+        this.exportProgresses.clear();
+        this.finishedSongs.set(0);
+        this.exportStart = System.nanoTime();
+        this.progressPanel.clear();
         this.export.setText("Cancel");
         this.progressBar.setValue(0);
         this.progressBar.setMaximum(this.loadedSongs.size());
         this.updateVisibility(false);
+        this.progressTimer.start();
 
         this.exportThread = new Thread(() -> this.doExport(out), "Song Export Thread");
         this.exportThread.setDaemon(true);
+        this.exportThread.setPriority(this.exporter.getThrottle().getThreadPriority());
         this.exportThread.start();
     }
 
@@ -275,6 +394,19 @@ public class ExportFrame extends JFrame {
                 file.getParentFile().mkdirs();
                 return file;
             }
+        } else if (this.getArchiveType() != null) {
+            final String archiveExtension = this.getArchiveType().getExtension();
+            fileChooser.setDialogTitle("Export Songs");
+            fileChooser.setFileSelectionMode(JFileChooser.FILES_ONLY);
+            fileChooser.setMultiSelectionEnabled(false);
+            fileChooser.setAcceptAllFileFilterUsed(false);
+            fileChooser.setFileFilter(new SingleFileFilter(archiveExtension));
+            if (fileChooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
+                File file = fileChooser.getSelectedFile();
+                if (!file.getName().toLowerCase().endsWith(archiveExtension)) file = new File(file.getParentFile(), file.getName() + "." + archiveExtension);
+                file.getParentFile().mkdirs();
+                return file;
+            }
         } else {
             fileChooser.setDialogTitle("Export Songs");
             fileChooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
@@ -293,114 +425,66 @@ public class ExportFrame extends JFrame {
             if (this.format.getSelectedItem().equals(OutputFormat.MP3) && !LameLibrary.isLoaded()) {
                 throw new IllegalStateException("LAME MP3 encoder is not available");
             }
+            final SoundRegistry soundRegistry = SoundMap.getRegistry(); // All songs of a batch use the same sounds, even if they are reloaded during the export
 
-            Map<ListFrame.LoadedSong, JPanel> songPanels = new ConcurrentHashMap<>();
+            final List<ExportProgressList.Entry> entries = new ArrayList<>(this.loadedSongs.size());
+            for (ListFrame.LoadedSong song : this.loadedSongs) {
+                final ExportProgress progress = new ExportProgress(this.exporter.getRenderedLength(song.song()));
+                this.songProgresses.put(song, progress);
+                entries.add(new ExportProgressList.Entry(song.song().getTitleOrFileNameOr("No Title"), progress));
+            }
             SwingUtilities.invokeAndWait(() -> {
-                for (ListFrame.LoadedSong song : this.loadedSongs) {
-                    JPanel songPanel = new JPanel();
-                    songPanel.setLayout(new GridBagLayout());
-                    songPanels.put(song, songPanel);
-
-                    this.progressPanel.add(songPanel);
-
-                    GBC.create(songPanel).grid(0, 0).insets(0).anchor(GBC.LINE_START).add(new JLabel(song.song().getTitleOrFileNameOr("No Title")));
-                    GBC.create(songPanel).grid(1, 0).insets(0, 5, 0, 0).weightx(1).fill(GBC.HORIZONTAL).add(new JProgressBar(), p -> p.setStringPainted(true));
-                }
-                this.progressPanel.revalidate();
-                this.progressPanel.repaint();
-            });
-            final Function<JProgressBar, FloatConsumer> progressConsumer = progressBar -> progress -> SwingUtilities.invokeLater(() -> {
-                int value = (int) progress;
-                if (value == 200) {
-                    progressBar.setString("Encoding MP3...");
-                } else if (value > 100) {
-                    progressBar.setString("Writing file...");
-                } else {
-                    progressBar.setValue(value);
+                for (ExportProgressList.Entry entry : entries) {
+                    this.exportProgresses.add(entry.progress());
                 }
-                progressBar.revalidate();
-                progressBar.repaint();
+                this.progressPanel.setEntries(entries);
             });
 
             if (this.loadedSongs.size() == 1) {
-                JPanel songPanel = songPanels.get(this.loadedSongs.get(0));
-                JProgressBar progressBar = (JProgressBar) songPanel.getComponent(1);
+                final ExportProgress progress = this.songProgresses.get(this.loadedSongs.get(0));
                 try {
-                    this.exportSong(this.loadedSongs.get(0), outFile, progressConsumer.apply(progressBar));
+                    this.exporter.export(this.loadedSongs.get(0).song(), outFile, soundRegistry, null, null, progress);
                 } catch (InterruptedException ignored) {
                 } catch (Throwable t) {
                     if (t.getCause() instanceof InterruptedException) {
                         return;
                     }
                     t.printStackTrace();
-                    JOptionPane.showMessageDialog(this, "Failed to export song:\n" + this.loadedSongs.get(0).file().getAbsolutePath() + "\n" + t.getClass().getSimpleName() + ": " + t.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                    JOptionPane.showMessageDialog(this, "Failed to export song:\n" + this.loadedSongs.get(0).file().getAbsolutePath() + "\n" + ExceptionUtil.getDescription(t), "Error", JOptionPane.ERROR_MESSAGE);
                 } finally {
-                    songPanels.remove(this.loadedSongs.get(0));
-                    SwingUtilities.invokeLater(() -> {
-                        this.progressPanel.remove(songPanel);
-                        this.progressPanel.revalidate();
-                        this.progressPanel.repaint();
-                    });
+                    progress.finish();
+                    this.finishedSongs.incrementAndGet();
                 }
             } else {
                 final int threadCount;
-                if (this.threaded.isSelected() && ((OutputFormat) this.format.getSelectedItem()).isAudioFile()) {
+                // Deterministic exports mix every song on a single thread, so they use the cores by exporting songs in parallel instead
+                if (((OutputFormat) this.format.getSelectedItem()).isSongFile() || ((MixingMode) this.mixingMode.getSelectedItem()).isThreaded() || this.deterministic.isSelected()) {
                     threadCount = Math.min(this.loadedSongs.size(), Runtime.getRuntime().availableProcessors());
                 } else {
                     threadCount = 1;
                 }
-                ThreadPoolExecutor threadPool = (ThreadPoolExecutor) Executors.newFixedThreadPool(threadCount);
-                Queue<Runnable> uiQueue = new ConcurrentLinkedQueue<>();
-
                 String extension = ((OutputFormat) this.format.getSelectedItem()).getExtension();
-                for (ListFrame.LoadedSong song : this.loadedSongs) {
-                    threadPool.submit(() -> {
-                        JPanel songPanel = songPanels.get(song);
-                        JProgressBar progressBar = (JProgressBar) songPanel.getComponent(1);
+                final ArchiveWriter.Type archiveType = this.getArchiveType();
+                // The scheduler is closed first, so its workers have stopped before the archive is closed
+                try (ArchiveWriter archive = archiveType != null ? new ArchiveWriter(outFile, archiveType, threadCount * 2) : null; ExportScheduler scheduler = new ExportScheduler(threadCount, (int) this.memoryBudget.getValue() * MEBIBYTE, this.exporter.getThrottle())) {
+                    scheduler.run(this.loadedSongs, song -> ExportScheduler.estimateCost(song.song()), song -> this.exporter.estimateMemory(song.song(), archive != null), song -> {
+                        final ExportProgress progress = this.songProgresses.get(song);
                         try {
-                            File file = new File(outFile, song.file().getName().substring(0, song.file().getName().lastIndexOf('.')) + "." + extension);
-                            this.exportSong(song, file, progressConsumer.apply(progressBar));
-                            uiQueue.offer(() -> {
-                                this.progressPanel.remove(songPanel);
-                                this.progressPanel.revalidate();
-                                this.progressPanel.repaint();
-                            });
+                            final String fileName = song.file().getName().substring(0, song.file().getName().lastIndexOf('.')) + "." + extension;
+                            this.exporter.export(song.song(), archive != null ? new File(fileName) : new File(outFile, fileName), soundRegistry, scheduler.getCpuBudget(), archive, progress);
+                            progress.finish();
                         } catch (InterruptedException ignored) {
                         } catch (Throwable t) {
                             if (t.getCause() instanceof InterruptedException) {
                                 return;
                             }
                             t.printStackTrace();
-                            uiQueue.offer(() -> {
-                                songPanel.remove(progressBar);
-                                GBC.create(songPanel).grid(1, 0).insets(0, 5, 0, 0).weightx(1).fill(GBC.HORIZONTAL).add(() -> {
-                                    JLabel label = new JLabel(t.getClass().getSimpleName() + ":" + t.getMessage());
-                                    label.setForeground(new Color(255, 107, 104));
-                                    return label;
-                                });
-                            });
+                            progress.fail(ExceptionUtil.getDescription(t));
                         } finally {
-                            songPanels.remove(song);
+                            this.finishedSongs.incrementAndGet();
                         }
                     });
                 }
-
-                while (threadPool.getCompletedTaskCount() < threadPool.getTaskCount() || !uiQueue.isEmpty()) {
-                    SwingUtilities.invokeAndWait(() -> {
-                        while (!uiQueue.isEmpty()) uiQueue.poll().run();
-
-                        this.progressBar.setValue(this.loadedSongs.size() - songPanels.size());
-                        this.progressBar.setString((this.loadedSongs.size() - songPanels.size()) + " / " + this.loadedSongs.size());
-                        this.progressBar.revalidate();
-                        this.progressBar.repaint();
-                    });
-                    try {
-                        Thread.sleep(100);
-                    } catch (InterruptedException e) {
-                        break;
-                    }
-                }
-                threadPool.shutdownNow();
             }
         } catch (InterruptedException ignored) {
         } catch (Throwable t) {
@@ -411,6 +495,8 @@ public class ExportFrame extends JFrame {
             JOptionPane.showMessageDialog(this, "Failed to export songs:\n" + t.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
         } finally {
             SwingUtilities.invokeLater(() -> {
+                this.progressTimer.stop();
+                this.updateProgress();
                 this.export.setText("Export");
                 this.progressBar.setValue(this.loadedSongs.size());
                 this.progressBar.revalidate();
@@ -420,95 +506,55 @@ public class ExportFrame extends JFrame {
         }
     }
 
-    private void exportSong(final ListFrame.LoadedSong song, final File file, final FloatConsumer progressConsumer) throws InterruptedException, IOException {
-        OutputFormat outputFormat = (OutputFormat) this.format.getSelectedItem();
-        if (outputFormat.isSongFile()) {
-            this.writeSong(song, file, outputFormat.getSongFormat());
-        } else if (outputFormat.isAudioFile()) {
-            final FloatAudioFormat audioFormat = new FloatAudioFormat(((Number) this.sampleRate.getValue()).floatValue(), ((Channels) this.channels.getSelectedItem()).getChannels());
-            final SongRenderer songRenderer = new ProgressSongRenderer(song.song(), (int) this.maxSounds.getValue(), !this.globalNormalization.isSelected(), this.threaded.isSelected(), audioFormat, progressConsumer);
-            songRenderer.setMasterVolume(this.volume.getValue());
-            songRenderer.setTimingJitter(this.timingJitter.isSelected());
-            final AudioBuffer buffer;
-            try {
-                buffer = songRenderer.renderSong();
-            } finally {
-                songRenderer.close();
-            }
-            if (this.globalNormalization.isSelected()) {
-                buffer.limitToUnitRange();
-            }
-            if (outputFormat.equals(OutputFormat.WAV)) {
-                progressConsumer.accept(101F);
-                final AudioInputStream audioInputStream = AudioIO.createAudioInputStream(buffer.samples(), buffer.format().toJavaPcmAudioFormat(((WavBitDepth) this.wavBitDepth.getSelectedItem()).getBitDepth()));
-                AudioSystem.write(audioInputStream, AudioFileFormat.Type.WAVE, file);
-                audioInputStream.close();
-            } else if (outputFormat.equals(OutputFormat.MP3)) {
-                progressConsumer.accept(200F);
-                final Pointer lame = LameLibrary.INSTANCE.lame_init();
-                if (lame == null) {
-                    throw new IllegalStateException("Failed to create LAME instance");
-                }
-                LameException.check(LameLibrary.INSTANCE.lame_set_in_samplerate(lame, (int) buffer.format().sampleRate()), "Failed to set sample rate");
-                LameException.check(LameLibrary.INSTANCE.lame_set_num_channels(lame, buffer.format().channels()), "Failed to set channels");
-                LameException.check(LameLibrary.INSTANCE.lame_set_VBR(lame, LameLibrary.vbr_default), "Failed to set VBR mode");
-                LameException.check(LameLibrary.INSTANCE.lame_set_VBR_quality(lame, (1F - (this.mp3Quality.getValue() / 100F)) * 9F), "Failed to set VBR quality");
-                LameLibrary.INSTANCE.id3tag_init(lame);
-                LameLibrary.INSTANCE.lame_set_write_id3tag_automatic(lame, false);
-                if (songRenderer.getSong().getTitle() != null) {
-                    LameLibrary.INSTANCE.id3tag_set_title(lame, songRenderer.getSong().getTitle());
-                }
-                if (songRenderer.getSong().getAuthor() != null) {
-                    LameLibrary.INSTANCE.id3tag_set_artist(lame, songRenderer.getSong().getAuthor());
-                }
-                if (songRenderer.getSong().getDescription() != null) {
-                    LameLibrary.INSTANCE.id3tag_set_comment(lame, songRenderer.getSong().getDescription());
-                }
-                LameException.check(LameLibrary.INSTANCE.id3tag_set_fieldvalue(lame, "TXXX=Renderer=NoteBlockTool"), "Failed to set custom ID3 tag");
-                LameException.check(LameLibrary.INSTANCE.lame_init_params(lame), "Failed to initialize LAME instance");
-
-                final byte[] data = new byte[MathUtils.ceilInt(1.25F * buffer.getFrameCount() + 7200)];
-                final int dataLength = LameException.check(switch (buffer.format().channels()) {
-                    case 1 -> LameLibrary.INSTANCE.lame_encode_buffer_ieee_float(lame, buffer.samples(), null, buffer.getFrameCount(), data, data.length);
-                    case 2 -> LameLibrary.INSTANCE.lame_encode_buffer_interleaved_ieee_float(lame, buffer.samples(), buffer.getFrameCount(), data, data.length);
-                    default -> throw new UnsupportedOperationException("Unsupported channel count: " + buffer.format().channels());
-                }, "Failed to encode buffer");
-                final byte[] trailer = new byte[7200];
-                final int trailerLength = LameException.check(LameLibrary.INSTANCE.lame_encode_flush(lame, trailer, trailer.length), "Failed to flush encoder");
-                final byte[] lameTagFrame = new byte[LameLibrary.INSTANCE.lame_get_lametag_frame(lame, null, 0)];
-                final int lameTagFrameLength = LameException.check(LameLibrary.INSTANCE.lame_get_lametag_frame(lame, lameTagFrame, lameTagFrame.length), "Failed to get LAME tag frame");
-                final byte[] id3v1Tag = new byte[LameLibrary.INSTANCE.lame_get_id3v1_tag(lame, null, 0)];
-                final int id3v1TagLength = LameException.check(LameLibrary.INSTANCE.lame_get_id3v1_tag(lame, id3v1Tag, id3v1Tag.length), "Failed to get ID3v1 tag");
-                final byte[] id3v2Tag = new byte[LameLibrary.INSTANCE.lame_get_id3v2_tag(lame, null, 0)];
-                final int id3v2TagLength = LameException.check(LameLibrary.INSTANCE.lame_get_id3v2_tag(lame, id3v2Tag, id3v2Tag.length), "Failed to get ID3v2 tag");
-                LameException.check(LameLibrary.INSTANCE.lame_close(lame), "Failed to close LAME instance");
-
-                progressConsumer.accept(101F);
-                System.arraycopy(lameTagFrame, 0, data, 0, lameTagFrameLength);
-                try (FileOutputStream fos = new FileOutputStream(file)) {
-                    fos.write(id3v2Tag, 0, id3v2TagLength);
-                    fos.write(data, 0, dataLength);
-                    fos.write(trailer, 0, trailerLength);
-                    fos.write(id3v1Tag, 0, id3v1TagLength);
-                }
-            } else {
-                throw new UnsupportedOperationException("Unsupported output format: " + this.format.getSelectedIndex());
-            }
-        } else {
-            throw new UnsupportedOperationException("Unsupported output format: " + this.format.getSelectedIndex());
-        }
+    private void updateProgress() {
+        // Workers only store their progress, the list is updated here at a fixed rate and only paints the visible rows
+        this.progressPanel.update();
+
+        final int finished = this.finishedSongs.get();
+        this.progressBar.setValue(finished);
+        this.progressBar.setString(finished + " / " + this.loadedSongs.size());
+        this.updateThroughput();
     }
 
-    private void writeSong(final ListFrame.LoadedSong song, final File file, final SongFormat format) {
-        try {
-            final Song exportSong = NoteBlockLib.convertSong(song.song(), format);
-            NoteBlockLib.writeSong(exportSong, file);
-        } catch (Throwable t) {
-            t.printStackTrace();
-            JOptionPane.showMessageDialog(this, "Failed to export song:\n" + song.file().getAbsolutePath() + "\n" + t.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+    private void updateThroughput() {
+        final ExportThroughput throughput = new ExportThroughput(this.exportProgresses, System.nanoTime() - this.exportStart);
+        this.realtimeFactorLabel.setText(throughput.getRealtimeFactorText());
+        this.notesLabel.setText(throughput.getNotesText());
+        this.voicesLabel.setText(throughput.getVoicesText());
+        this.encoderLabel.setText(throughput.getEncoderText());
+    }
+
+    private ArchiveWriter.Type getArchiveType() {
+        if (this.loadedSongs.size() == 1 || !((OutputFormat) this.format.getSelectedItem()).isAudioFile()) {
+            return null;
         }
+        return ((OutputTarget) this.outputTarget.getSelectedItem()).getArchiveType();
+    }
+
+    private AudioOutput createMainOutput() {
+        final OutputFormat outputFormat = (OutputFormat) this.format.getSelectedItem();
+        final FloatAudioFormat audioFormat = new FloatAudioFormat(((Number) this.sampleRate.getValue()).floatValue(), ((Channels) this.channels.getSelectedItem()).getChannels());
+        final AudioOutput.Format format = switch (outputFormat) {
+            case WAV -> AudioOutput.Format.WAV;
+            case MP3 -> AudioOutput.Format.MP3;
+            default -> throw new UnsupportedOperationException("Unsupported output format: " + outputFormat);
+        };
+        return new AudioOutput(format, audioFormat, ((WavBitDepth) this.wavBitDepth.getSelectedItem()).getBitDepth(), this.wavDither.isSelected(), this.mp3Quality.getValue(), this.mp3Segmented.isSelected());
     }
 
+    private ExportOptions createOptions() {
+        final OutputFormat outputFormat = (OutputFormat) this.format.getSelectedItem();
+        final List<AudioOutput> audioOutputs = new ArrayList<>();
+        if (outputFormat.isAudioFile()) {
+            audioOutputs.add(this.createMainOutput());
+            audioOutputs.addAll(AudioOutput.parseList(this.additionalOutputs.getText(), audioOutputs.get(0)));
+        }
+        PreviewSettings preview = null;
+        if (outputFormat.isAudioFile() && this.previewClip.isSelected()) {
+            preview = new PreviewSettings((int) this.previewLength.getValue(), this.previewAutoStart.isSelected() ? PreviewSettings.AUTO_START : (int) this.previewStart.getValue());
+        }
+        return new ExportOptions(outputFormat.getSongFormat(), audioOutputs, this.volume.getValue(), this.timingJitter.isSelected(), (int) this.maxSounds.getValue(), (int) this.admissionThreshold.getValue(), this.globalNormalization.isSelected(), (MixingMode) this.mixingMode.getSelectedItem(), this.deterministic.isSelected(), preview, (RenderProfile) this.renderProfile.getSelectedItem());
+    }
 
     private enum OutputFormat {
         NBS("NBS", "nbs", SongFormat.NBS),
@@ -549,6 +595,29 @@ public class ExportFrame extends JFrame {
         }
     }
 
+    private enum OutputTarget {
+        FOLDER("Folder", null),
+        ZIP("ZIP Archive", ArchiveWriter.Type.ZIP),
+        TAR("TAR Archive", ArchiveWriter.Type.TAR);
+
+        private final String name;
+        private final ArchiveWriter.Type archiveType;
+
+        OutputTarget(final String name, final ArchiveWriter.Type archiveType) {
+            this.name = name;
+            this.archiveType = archiveType;
+        }
+
+        public ArchiveWriter.Type getArchiveType() {
+            return this.archiveType;
+        }
+
+        @Override
+        public String toString() {
+            return this.name;
+        }
+    }
+
     private enum WavBitDepth {
         PCM8("PCM 8", 8),
         PCM16("PCM 16", 16),
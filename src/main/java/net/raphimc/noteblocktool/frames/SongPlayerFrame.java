@@ -21,6 +21,7 @@ import net.lenni0451.commons.swing.GBC;
 import net.lenni0451.commons.swing.components.ScrollPaneSizedPanel;
 import net.raphimc.audiomixer.util.FloatAudioFormat;
 import net.raphimc.noteblocklib.model.song.Song;
+import net.raphimc.noteblocktool.audio.renderer.MixingMode;
 import net.raphimc.noteblocktool.audio.renderer.SongRenderer;
 import net.raphimc.noteblocktool.audio.renderer.impl.RealtimeSongRenderer;
 import net.raphimc.noteblocktool.elements.FastScrollPane;
@@ -47,7 +48,8 @@ public class SongPlayerFrame extends JFrame {
     private static int lastVolume = 50;
     private static boolean lastTimingJitter = false;
     private static int lastMaxSounds = 4096;
-    private static boolean lastThreaded = false;
+    private static int lastAdmissionThreshold = 0;
+    private static MixingMode lastMixingMode = MixingMode.SINGLE_THREADED;
 
     public static void open(final Song song) {
         if (instance != null && instance.isVisible()) {
@@ -55,7 +57,8 @@ public class SongPlayerFrame extends JFrame {
             lastVolume = instance.volume.getValue();
             lastTimingJitter = instance.timingJitter.isSelected();
             lastMaxSounds = (int) instance.maxSounds.getValue();
-            lastThreaded = instance.threaded.isSelected();
+            lastAdmissionThreshold = (int) instance.admissionThreshold.getValue();
+            lastMixingMode = (MixingMode) instance.mixingMode.getSelectedItem();
             instance.dispose();
         }
         SwingUtilities.invokeLater(() -> {
@@ -64,7 +67,8 @@ public class SongPlayerFrame extends JFrame {
             instance.volume.setValue(lastVolume);
             instance.timingJitter.setSelected(lastTimingJitter);
             instance.maxSounds.setValue(lastMaxSounds);
-            instance.threaded.setSelected(lastThreaded);
+            instance.admissionThreshold.setValue(lastAdmissionThreshold);
+            instance.mixingMode.setSelectedItem(lastMixingMode);
             instance.playStop.doClick(0);
             instance.setVisible(true);
         });
@@ -76,7 +80,8 @@ public class SongPlayerFrame extends JFrame {
     private final JSlider volume = new JSlider(0, 100, lastVolume);
     private final JCheckBox timingJitter = new JCheckBox("Artificial Timing Jitter", lastTimingJitter);
     private final JSpinner maxSounds = new JSpinner(new SpinnerNumberModel(lastMaxSounds, 64, 131070, 64));
-    private final JCheckBox threaded = new JCheckBox("Multithreaded Rendering", lastThreaded);
+    private final JSpinner admissionThreshold = new JSpinner(new SpinnerNumberModel(lastAdmissionThreshold, 0, 120, 6));
+    private final JComboBox<MixingMode> mixingMode = new JComboBox<>(MixingMode.values());
     private final JButton playStop = new JButton("Play");
     private final JButton pauseResume = new JButton("Pause");
     private final JButton openVisualizer = new JButton("Open Visualizer");
@@ -85,7 +90,7 @@ public class SongPlayerFrame extends JFrame {
     private final JLabel progressLabel = new JLabel("Current Position: 00:00:00");
     private SongRenderer songRenderer;
     private int currentMaxSounds;
-    private boolean currentThreaded;
+    private MixingMode currentMixingMode;
     private VisualizerWindow visualizerWindow;
 
     private SongPlayerFrame(final Song song) {
@@ -254,8 +259,22 @@ public class SongPlayerFrame extends JFrame {
                         this.maxSounds.addChangeListener(e -> lastMaxSounds = (int) this.maxSounds.getValue());
                     });
 
-                    GBC.create(rendererPanel).nextRow().insets(5, 5, 5, 5).anchor(GBC.LINE_START).add(this.threaded, () -> {
-                        this.threaded.addChangeListener(e -> lastThreaded = this.threaded.isSelected());
+                    GBC.create(rendererPanel).nextRow().insets(5, 5, 0, 5).anchor(GBC.LINE_START).add(new JLabel("Note Admission Threshold (dB):"));
+                    GBC.create(rendererPanel).nextRow().insets(0, 5, 0, 5).weightx(1).fill(GBC.HORIZONTAL).add(this.admissionThreshold, () -> {
+                        this.admissionThreshold.setToolTipText("Notes which are quieter than the loudest note of the same tick by more than this amount are not played.\nThis greatly reduces the sound count of songs with thousands of quiet notes per tick. 0 plays all notes.");
+                        this.admissionThreshold.addChangeListener(e -> {
+                            if (this.songRenderer != null) {
+                                this.songRenderer.setNoteAdmissionThreshold((int) this.admissionThreshold.getValue());
+                            }
+                            lastAdmissionThreshold = (int) this.admissionThreshold.getValue();
+                        });
+                    });
+
+                    GBC.create(rendererPanel).nextRow().insets(5, 5, 0, 5).anchor(GBC.LINE_START).add(new JLabel("Mixing:"));
+                    GBC.create(rendererPanel).nextRow().insets(0, 5, 5, 5).weightx(1).fill(GBC.HORIZONTAL).add(this.mixingMode, () -> {
+                        this.mixingMode.setSelectedItem(lastMixingMode);
+                        this.mixingMode.setToolTipText("Adaptive switches between single-threaded and multithreaded mixing depending on how many sounds are playing.");
+                        this.mixingMode.addActionListener(e -> lastMixingMode = (MixingMode) this.mixingMode.getSelectedItem());
                     });
 
                     GBC.fillVerticalSpace(rendererPanel);
@@ -272,14 +291,15 @@ public class SongPlayerFrame extends JFrame {
 
     private void initSongPlayer() {
         final int maxSounds = (int) this.maxSounds.getValue();
-        final boolean threaded = this.threaded.isSelected();
-        if (this.songRenderer == null || this.currentMaxSounds != maxSounds || this.currentThreaded != threaded) {
+        final MixingMode mixingMode = (MixingMode) this.mixingMode.getSelectedItem();
+        if (this.songRenderer == null || this.currentMaxSounds != maxSounds || this.currentMixingMode != mixingMode) {
             this.closeSongPlayerAndVisualizer();
-            this.songRenderer = new RealtimeSongRenderer(this.song, maxSounds, true, threaded, PLAYBACK_AUDIO_FORMAT);
+            this.songRenderer = new RealtimeSongRenderer(this.song, maxSounds, true, mixingMode, PLAYBACK_AUDIO_FORMAT);
             this.songRenderer.setMasterVolume(this.volume.getValue());
             this.songRenderer.setTimingJitter(this.timingJitter.isSelected());
+            this.songRenderer.setNoteAdmissionThreshold((int) this.admissionThreshold.getValue());
             this.currentMaxSounds = maxSounds;
-            this.currentThreaded = threaded;
+            this.currentMixingMode = mixingMode;
         }
     }
 
@@ -302,7 +322,7 @@ public class SongPlayerFrame extends JFrame {
     private void tick() {
         if (this.songRenderer != null && this.songRenderer.isRunning()) {
             this.maxSounds.setEnabled(false);
-            this.threaded.setEnabled(false);
+            this.mixingMode.setEnabled(false);
             this.pauseResume.setEnabled(true);
             this.progress.setEnabled(true);
             this.playStop.setText("Stop");
@@ -319,7 +339,7 @@ public class SongPlayerFrame extends JFrame {
             this.statusLine.setText(String.join(", ", this.songRenderer.getStatusLines()));
         } else {
             this.maxSounds.setEnabled(true);
-            this.threaded.setEnabled(true);
+            this.mixingMode.setEnabled(true);
             this.pauseResume.setEnabled(false);
             this.progress.setEnabled(false);
             this.playStop.setText("Play");
@@ -0,0 +1,55 @@
+/*
+ * This file is part of NoteBlockTool - https://github.com/RaphiMC/NoteBlockTool
+ * Copyright (C) 2022-2026 RK_01/RaphiMC and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.raphimc.noteblocktool.util;
+
+import java.util.concurrent.Semaphore;
+
+public class CpuBudget {
+
+    private final Semaphore cores;
+
+    public CpuBudget(final int cores) {
+        this.cores = new Semaphore(cores, true);
+    }
+
+    public void acquire() throws InterruptedException {
+        this.cores.acquire();
+    }
+
+    public int tryAcquire(final int maxCores) {
+        // Cores are only taken while no worker is waiting for one
+        while (!this.cores.hasQueuedThreads()) {
+            final int cores = Math.min(maxCores, this.cores.availablePermits());
+            if (cores <= 0) {
+                return 0;
+            } else if (this.cores.tryAcquire(cores)) {
+                return cores;
+            }
+        }
+        return 0;
+    }
+
+    public void release(final int cores) {
+        this.cores.release(cores);
+    }
+
+    public boolean isContended() {
+        return this.cores.hasQueuedThreads();
+    }
+
+}
@@ -0,0 +1,50 @@
+/*
+ * This file is part of NoteBlockTool - https://github.com/RaphiMC/NoteBlockTool
+ * Copyright (C) 2022-2026 RK_01/RaphiMC and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.raphimc.noteblocktool.util;
+
+public class MemoryBudget {
+
+    private final long capacity;
+    private long used;
+
+    public MemoryBudget(final long capacity) {
+        this.capacity = capacity;
+    }
+
+    public synchronized void acquire(final long bytes) throws InterruptedException {
+        // Jobs which are larger than the whole budget are still admitted once nothing else is running
+        while (this.used > 0 && this.used + bytes > this.capacity) {
+            this.wait();
+        }
+        this.used += bytes;
+    }
+
+    public synchronized void release(final long bytes) {
+        this.used -= bytes;
+        this.notifyAll();
+    }
+
+    public long getCapacity() {
+        return this.capacity;
+    }
+
+    public synchronized long getUsed() {
+        return this.used;
+    }
+
+}
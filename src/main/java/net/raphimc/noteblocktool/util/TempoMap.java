@@ -0,0 +1,94 @@
+/*
+ * This file is part of NoteBlockTool - https://github.com/RaphiMC/NoteBlockTool
+ * Copyright (C) 2022-2026 RK_01/RaphiMC and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.raphimc.noteblocktool.util;
+
+import net.raphimc.noteblocklib.model.song.Song;
+
+import java.util.Arrays;
+import java.util.function.IntToDoubleFunction;
+import java.util.function.IntUnaryOperator;
+
+public class TempoMap {
+
+    private static final float DEFAULT_TEMPO = 20F;
+
+    private final IntUnaryOperator noteCounts;
+    private final double[] tickSeconds;
+
+    public TempoMap(final Song song) {
+        this(song.getNotes().getLengthInTicks(), tick -> song.getTempoEvents().get(tick), tick -> song.getNotes().getOrEmpty(tick).size());
+    }
+
+    TempoMap(final int lengthInTicks, final IntToDoubleFunction tempoEvents, final IntUnaryOperator noteCounts) {
+        this.noteCounts = noteCounts;
+        // The start time of every tick, the last entry is the end of the song.
+        // Tempo events are sparse, a tempo stays in effect until the next event changes it
+        this.tickSeconds = new double[lengthInTicks + 2];
+        double tempo = DEFAULT_TEMPO;
+        for (int tick = 0; tick <= lengthInTicks; tick++) {
+            final double eventTempo = tempoEvents.applyAsDouble(tick);
+            if (eventTempo > 0D) {
+                tempo = eventTempo;
+            }
+            this.tickSeconds[tick + 1] = this.tickSeconds[tick] + 1D / tempo;
+        }
+    }
+
+    public float getSeconds(final int tick) {
+        return (float) this.tickSeconds[Math.max(0, Math.min(tick, this.tickSeconds.length - 1))];
+    }
+
+    public int getTick(final float seconds) {
+        // The last tick which starts at or before the given time
+        final int index = Arrays.binarySearch(this.tickSeconds, Math.max(0D, seconds));
+        return Math.min(index >= 0 ? index : -index - 2, this.getLengthInTicks());
+    }
+
+    public int getLengthInTicks() {
+        return this.tickSeconds.length - 2;
+    }
+
+    public float getLengthInSeconds() {
+        return (float) this.tickSeconds[this.tickSeconds.length - 1];
+    }
+
+    public int findDensestWindow(final float windowSeconds) {
+        // Slides a window of the given length over the song and returns the start tick of the window with the most notes
+        final int lengthInTicks = this.getLengthInTicks();
+        int bestTick = 0;
+        long bestNoteCount = -1;
+        long noteCount = 0;
+        int endTick = 0;
+        for (int startTick = 0; startTick <= lengthInTicks; startTick++) {
+            if (startTick > 0 && this.tickSeconds[startTick] + windowSeconds > this.getLengthInSeconds()) {
+                break;
+            }
+            while (endTick <= lengthInTicks && this.tickSeconds[endTick] < this.tickSeconds[startTick] + windowSeconds) {
+                noteCount += this.noteCounts.applyAsInt(endTick);
+                endTick++;
+            }
+            if (noteCount > bestNoteCount) {
+                bestNoteCount = noteCount;
+                bestTick = startTick;
+            }
+            noteCount -= this.noteCounts.applyAsInt(startTick);
+        }
+        return bestTick;
+    }
+
+}
@@ -0,0 +1,135 @@
+/*
+ * This file is part of NoteBlockTool - https://github.com/RaphiMC/NoteBlockTool
+ * Copyright (C) 2022-2026 RK_01/RaphiMC and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.raphimc.noteblocktool.export;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class Mp3EncoderTest {
+
+    private static final int XING_OFFSET = 36;
+    private static final int LAME_OFFSET = XING_OFFSET + 8 + 4 + 4 + 100 + 4;
+
+    @Test
+    void parseFrames() throws IOException {
+        // Two MPEG-1 Layer III frames at 128 kbps and 44.1 kHz, the second one is padded
+        final byte[] data = new byte[417 + 418];
+        header(data, 0, false);
+        header(data, 417, true);
+        final List<int[]> frames = Mp3Encoder.parseFrames(data, data.length);
+        assertEquals(2, frames.size());
+        assertArrayEquals(new int[]{0, 417}, frames.get(0));
+        assertArrayEquals(new int[]{417, 418}, frames.get(1));
+    }
+
+    @Test
+    void parseFramesClampsTruncatedFrame() throws IOException {
+        final byte[] data = new byte[417 + 100];
+        header(data, 0, false);
+        header(data, 417, false);
+        final List<int[]> frames = Mp3Encoder.parseFrames(data, data.length);
+        assertArrayEquals(new int[]{417, 100}, frames.get(1));
+    }
+
+    @Test
+    void parseFramesRejectsInvalidHeader() {
+        final byte[] data = new byte[417];
+        assertThrows(IOException.class, () -> Mp3Encoder.parseFrames(data, data.length));
+    }
+
+    @Test
+    void patchLameTag() throws IOException {
+        final byte[] frame = lameTagFrame(1000);
+        final byte[] tableOfContents = new byte[100];
+        Arrays.fill(tableOfContents, (byte) 7);
+        Mp3Encoder.patchLameTag(frame, 5000, 10, 1200, 100, 50000, 700, 0x1234, tableOfContents);
+
+        final ByteBuffer buffer = ByteBuffer.wrap(frame);
+        assertEquals(102, buffer.getInt(XING_OFFSET + 8)); // LAME counted two frames more than the first segment contains
+        assertEquals(50417, buffer.getInt(XING_OFFSET + 12)); // LAME counted 417 bytes more than the first segment contains
+        assertArrayEquals(tableOfContents, Arrays.copyOfRange(frame, XING_OFFSET + 16, XING_OFFSET + 116));
+        assertEquals(576, readInt(frame, LAME_OFFSET + 21, 3) >> 12); // The encoder delay is kept
+        assertEquals(500, readInt(frame, LAME_OFFSET + 21, 3) & 0xFFF); // 700 - (1200 - 1000)
+        assertEquals(49800, buffer.getInt(LAME_OFFSET + 28));
+        assertEquals(0x1234, readInt(frame, LAME_OFFSET + 32, 2));
+        assertEquals(crc16(frame, LAME_OFFSET + 34), readInt(frame, LAME_OFFSET + 34, 2));
+    }
+
+    @Test
+    void patchLameTagRejectsInvalidPadding() {
+        final byte[] frame = lameTagFrame(1000);
+        assertThrows(IOException.class, () -> Mp3Encoder.patchLameTag(frame, 5000, 10, 5000, 100, 50000, 700, 0, new byte[100]));
+    }
+
+    @Test
+    void patchLameTagRejectsMissingXingHeader() {
+        final byte[] frame = new byte[417];
+        header(frame, 0, false);
+        assertThrows(IOException.class, () -> Mp3Encoder.patchLameTag(frame, 5000, 10, 0, 100, 50000, 0, 0, new byte[100]));
+    }
+
+    private static byte[] lameTagFrame(final int padding) {
+        final byte[] frame = new byte[417];
+        header(frame, 0, false);
+        final ByteBuffer buffer = ByteBuffer.wrap(frame);
+        buffer.put(XING_OFFSET, "Info".getBytes(StandardCharsets.ISO_8859_1));
+        buffer.putInt(XING_OFFSET + 4, 0x0F); // Frames, bytes, table of contents and quality
+        buffer.putInt(XING_OFFSET + 8, 12);
+        buffer.putInt(XING_OFFSET + 12, 5417);
+        buffer.put(LAME_OFFSET, "LAME".getBytes(StandardCharsets.ISO_8859_1));
+        final int delayAndPadding = 576 << 12 | padding;
+        frame[LAME_OFFSET + 21] = (byte) (delayAndPadding >> 16);
+        frame[LAME_OFFSET + 22] = (byte) (delayAndPadding >> 8);
+        frame[LAME_OFFSET + 23] = (byte) delayAndPadding;
+        buffer.putInt(LAME_OFFSET + 28, 4800);
+        return frame;
+    }
+
+    private static void header(final byte[] data, final int offset, final boolean padded) {
+        data[offset] = (byte) 0xFF;
+        data[offset + 1] = (byte) 0xFB;
+        data[offset + 2] = (byte) (padded ? 0x92 : 0x90);
+    }
+
+    private static int readInt(final byte[] data, final int offset, final int length) {
+        int value = 0;
+        for (int i = 0; i < length; i++) {
+            value = (value << 8) | (data[offset + i] & 0xFF);
+        }
+        return value;
+    }
+
+    private static int crc16(final byte[] data, final int length) {
+        int crc = 0;
+        for (int i = 0; i < length; i++) {
+            crc ^= data[i] & 0xFF;
+            for (int bit = 0; bit < 8; bit++) {
+                crc = (crc & 1) != 0 ? (crc >>> 1) ^ 0xA001 : crc >>> 1;
+            }
+        }
+        return crc;
+    }
+
+}
@@ -0,0 +1,107 @@
+/*
+ * This file is part of NoteBlockTool - https://github.com/RaphiMC/NoteBlockTool
+ * Copyright (C) 2022-2026 RK_01/RaphiMC and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.raphimc.noteblocktool.export.distributed;
+
+import net.raphimc.audiomixer.util.FloatAudioFormat;
+import net.raphimc.noteblocklib.format.SongFormat;
+import net.raphimc.noteblocktool.audio.renderer.MixingMode;
+import net.raphimc.noteblocktool.audio.renderer.RenderProfile;
+import net.raphimc.noteblocktool.export.AudioOutput;
+import net.raphimc.noteblocktool.export.ExportOptions;
+import net.raphimc.noteblocktool.export.PreviewSettings;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WorkerProtocolTest {
+
+    @Test
+    void optionsRoundTrip() throws IOException {
+        final List<AudioOutput> audioOutputs = List.of(
+                new AudioOutput(AudioOutput.Format.WAV, new FloatAudioFormat(48000F, 2), 24, true, 80, false),
+                new AudioOutput(AudioOutput.Format.MP3, new FloatAudioFormat(22050F, 1), 16, false, 40, true)
+        );
+        final ExportOptions options = new ExportOptions(null, audioOutputs, 75, true, 4096, 30, false, MixingMode.ADAPTIVE, true, new PreviewSettings(30F, PreviewSettings.AUTO_START), RenderProfile.DRAFT);
+        assertEquals(options, roundTrip(options));
+    }
+
+    @Test
+    void songFileOptionsRoundTrip() throws IOException {
+        final ExportOptions options = new ExportOptions(SongFormat.NBS, List.of(), 50, false, 16384, 0, true, MixingMode.SINGLE_THREADED, false, null, RenderProfile.NORMAL);
+        assertEquals(options, roundTrip(options));
+    }
+
+    @Test
+    void invalidOptionsAreRejected() throws IOException {
+        final ByteArrayOutputStream data = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(data);
+        out.writeUTF("");
+        out.writeInt(1);
+        out.writeUTF("FLAC");
+        assertThrows(IOException.class, () -> WorkerProtocol.readOptions(new DataInputStream(new ByteArrayInputStream(data.toByteArray()))));
+    }
+
+    @Test
+    void handshake() throws IOException {
+        final ByteArrayOutputStream data = new ByteArrayOutputStream();
+        WorkerProtocol.writeHandshake(new DataOutputStream(data));
+        WorkerProtocol.readHandshake(new DataInputStream(new ByteArrayInputStream(data.toByteArray())));
+
+        final ByteArrayOutputStream otherVersion = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(otherVersion);
+        out.writeInt(WorkerProtocol.MAGIC);
+        out.writeInt(WorkerProtocol.VERSION + 1);
+        assertThrows(IOException.class, () -> WorkerProtocol.readHandshake(new DataInputStream(new ByteArrayInputStream(otherVersion.toByteArray()))));
+    }
+
+    @Test
+    void fileRoundTrip() throws IOException {
+        final byte[] content = new byte[200_000];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) (i * 31);
+        }
+        final File file = File.createTempFile("noteblocktool", ".nbs");
+        try {
+            try (OutputStream out = new FileOutputStream(file)) {
+                out.write(content);
+            }
+            final ByteArrayOutputStream data = new ByteArrayOutputStream();
+            WorkerProtocol.writeFile(new DataOutputStream(data), file);
+            final ByteArrayOutputStream received = new ByteArrayOutputStream();
+            WorkerProtocol.readFile(new DataInputStream(new ByteArrayInputStream(data.toByteArray())), received);
+            assertArrayEquals(content, received.toByteArray());
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static ExportOptions roundTrip(final ExportOptions options) throws IOException {
+        final ByteArrayOutputStream data = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(data);
+        WorkerProtocol.writeOptions(out, options);
+        out.flush();
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(data.toByteArray()));
+        final ExportOptions result = WorkerProtocol.readOptions(in);
+        assertEquals(-1, in.read()); // Everything that was written was read
+        return result;
+    }
+
+}
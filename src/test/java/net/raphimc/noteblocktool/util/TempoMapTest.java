@@ -0,0 +1,66 @@
+/*
+ * This file is part of NoteBlockTool - https://github.com/RaphiMC/NoteBlockTool
+ * Copyright (C) 2022-2026 RK_01/RaphiMC and contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.raphimc.noteblocktool.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TempoMapTest {
+
+    @Test
+    void sparseTempoEventsStayInEffect() {
+        // 8 TPS for the first 10 ticks, then 16 TPS. Ticks without an event report a tempo of 0
+        final TempoMap tempoMap = new TempoMap(20, tick -> tick == 0 ? 8F : tick == 10 ? 16F : 0F, tick -> 0);
+        assertEquals(0F, tempoMap.getSeconds(0));
+        assertEquals(1.25F, tempoMap.getSeconds(10));
+        assertEquals(1.875F, tempoMap.getSeconds(20));
+        assertEquals(1.9375F, tempoMap.getLengthInSeconds());
+        assertEquals(20, tempoMap.getLengthInTicks());
+    }
+
+    @Test
+    void missingInitialTempoUsesDefault() {
+        final TempoMap tempoMap = new TempoMap(19, tick -> 0F, tick -> 0);
+        assertEquals(1F, tempoMap.getLengthInSeconds(), 1E-6F);
+    }
+
+    @Test
+    void getTickReturnsPlayingTick() {
+        final TempoMap tempoMap = new TempoMap(20, tick -> tick == 0 ? 8F : 0F, tick -> 0);
+        assertEquals(0, tempoMap.getTick(-1F));
+        assertEquals(0, tempoMap.getTick(0F));
+        assertEquals(2, tempoMap.getTick(0.25F));
+        assertEquals(2, tempoMap.getTick(0.3F));
+        assertEquals(2, tempoMap.getTick(0.374F));
+        assertEquals(20, tempoMap.getTick(100F));
+    }
+
+    @Test
+    void findDensestWindow() {
+        final TempoMap tempoMap = new TempoMap(100, tick -> tick == 0 ? 8F : 0F, tick -> tick >= 50 && tick < 55 ? 5 : 1);
+        assertEquals(50, tempoMap.findDensestWindow(0.625F));
+    }
+
+    @Test
+    void findDensestWindowLongerThanSong() {
+        final TempoMap tempoMap = new TempoMap(10, tick -> tick == 0 ? 8F : 0F, tick -> 1);
+        assertEquals(0, tempoMap.findDensestWindow(10F));
+    }
+
+}